@@ -0,0 +1,77 @@
+package com.skywalker.envprinter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link EnvFilterService} filtering and endpoint serialization over deterministic environments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterServiceBenchmark {
+
+    /**
+     * Number of environment variables.
+     */
+    @Param({"100", "1000", "10000"})
+    public int variables;
+
+    /**
+     * Project-only mode, or exclusion mode when false.
+     */
+    @Param({"true", "false"})
+    public boolean projectOnly;
+
+    /**
+     * Whether values are shown, which decides between the full and the names-only endpoint view.
+     */
+    @Param({"false", "true"})
+    public boolean showValues;
+
+    private EnvFilterService filterService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup
+    public void createService() {
+        SyntheticEnvironment environment = SyntheticEnvironment.generate(variables);
+        EnvPrinterProperties properties = new EnvPrinterProperties();
+        properties.setProjectOnly(projectOnly);
+        properties.setShowValues(showValues);
+        filterService = new EnvFilterService(properties, environment.scanner(), environment.source());
+        // Run the one-off project scan outside the measurement
+        filterService.getFilteredEnvironment();
+    }
+
+    @Benchmark
+    public Map<String, String> getFilteredEnvironment() {
+        return filterService.getFilteredEnvironment();
+    }
+
+    @Benchmark
+    public Map<String, String> getFilteredEnvironmentForEndpoint() {
+        return filterService.getFilteredEnvironmentForEndpoint();
+    }
+
+    @Benchmark
+    public byte[] serializeEndpointResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(filterService.getFilteredEnvironmentForEndpoint());
+    }
+}
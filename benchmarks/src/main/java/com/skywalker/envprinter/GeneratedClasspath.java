@@ -0,0 +1,93 @@
+package com.skywalker.envprinter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Temporary classpath made of generated jars, each holding application configuration files
+ * and copies of {@link SampleComponent} under the {@code com.generated} package.
+ */
+final class GeneratedClasspath implements AutoCloseable {
+
+    static final String PACKAGE = "com.generated";
+
+    private final Path directory;
+    private final URLClassLoader classLoader;
+
+    private GeneratedClasspath(Path directory, URLClassLoader classLoader) {
+        this.directory = directory;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Generates the given number of jars with the given number of classes each.
+     * The class loader has no parent, so only the generated jars are visible to the scanner.
+     */
+    static GeneratedClasspath create(int jars, int classesPerJar) {
+        try {
+            Path directory = Files.createTempDirectory("env-printer-bench");
+            byte[] classBytes = sampleClassBytes();
+            Random random = new Random(42);
+            List<URL> urls = new ArrayList<>();
+            for (int i = 0; i < jars; i++) {
+                Path jar = directory.resolve("lib-" + i + ".jar");
+                try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+                    String packagePath = PACKAGE.replace('.', '/') + "/lib" + i + "/";
+                    out.putNextEntry(new JarEntry(PACKAGE.replace('.', '/') + "/"));
+                    out.putNextEntry(new JarEntry(packagePath));
+                    for (int c = 0; c < classesPerJar; c++) {
+                        write(out, packagePath + "Component" + c + ".class", classBytes);
+                    }
+                    if (i % 4 == 0) {
+                        byte[] config = SyntheticConfig.yaml(8 * 1024, random).getBytes(StandardCharsets.UTF_8);
+                        write(out, "application-lib" + i + ".yml", config);
+                    }
+                }
+                urls.add(jar.toUri().toURL());
+            }
+            return new GeneratedClasspath(directory, new URLClassLoader(urls.toArray(new URL[0]), null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    ClassLoader classLoader() {
+        return classLoader;
+    }
+
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void write(OutputStream out, String name, byte[] content) throws IOException {
+        ((JarOutputStream) out).putNextEntry(new JarEntry(name));
+        out.write(content);
+    }
+
+    private static byte[] sampleClassBytes() throws IOException {
+        String resource = SampleComponent.class.getName().replace('.', '/') + ".class";
+        try (InputStream in = SampleComponent.class.getClassLoader().getResourceAsStream(resource)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.skywalker.envprinter;
+
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Class whose bytecode is copied into generated classpaths, so that every scanned
+ * class carries an {@code @Value} placeholder and a {@code System.getenv} call.
+ */
+public class SampleComponent {
+
+    @Value("${SAMPLE_DATABASE_URL:jdbc:h2:mem:test}")
+    private String databaseUrl;
+
+    public String token() {
+        return System.getenv("SAMPLE_API_TOKEN") + databaseUrl;
+    }
+}
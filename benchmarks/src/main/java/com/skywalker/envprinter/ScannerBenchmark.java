@@ -0,0 +1,72 @@
+package com.skywalker.envprinter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link EnvUsageScanner#scanForUsedEnvVariables()} over generated classpaths of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScannerBenchmark {
+
+    /**
+     * Number of jars on the generated classpath.
+     */
+    @Param({"10", "100", "400"})
+    public int jars;
+
+    /**
+     * Number of classes in each jar.
+     */
+    @Param({"50"})
+    public int classesPerJar;
+
+    /**
+     * Scan scope; with {@code APPLICATION} the generated dependency jars are skipped.
+     */
+    @Param({"CLASSPATH", "APPLICATION"})
+    public EnvPrinterProperties.ScanScope scope;
+
+    private GeneratedClasspath classpath;
+    private EnvUsageScanner scanner;
+
+    @Setup(Level.Trial)
+    public void createClasspath() {
+        classpath = GeneratedClasspath.create(jars, classesPerJar);
+        EnvPrinterProperties properties = new EnvPrinterProperties();
+        properties.getScan().setIndexEnabled(false);
+        properties.getScan().setScope(scope);
+        scanner = new EnvUsageScanner(properties, List.of(GeneratedClasspath.PACKAGE), classpath.classLoader());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteClasspath() throws IOException {
+        classpath.close();
+    }
+
+    @Benchmark
+    public Set<String> scanForUsedEnvVariables() {
+        return scanner.scanForUsedEnvVariables();
+    }
+}
@@ -0,0 +1,134 @@
+package com.skywalker.envprinter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CompactEnvMap} with the {@link TreeMap}s snapshots used before, over large
+ * synthetic environments.
+ *
+ * <p>The {@code build} benchmarks create the variables and the names-only view of one snapshot
+ * from the same environment, and allocate nothing that the result does not keep, so with
+ * {@code -prof gc} their {@code gc.alloc.rate.norm} is the footprint of a snapshot. The
+ * {@code get} and {@code range} benchmarks measure a lookup and the iteration of a prefix range.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotMapBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    /**
+     * Prefix of about one in four synthetic variables.
+     */
+    private static final String PREFIX = "DB_POOL_";
+
+    /**
+     * First name after the prefix range: the prefix with its last character incremented.
+     */
+    private static final String PREFIX_END = "DB_POOL`";
+
+    /**
+     * Number of environment variables.
+     */
+    @Param({"1000", "10000"})
+    public int variables;
+
+    private Map<String, String> environment;
+    private final String[] lookups = new String[LOOKUPS];
+    private NavigableMap<String, String> treeMap;
+    private NavigableMap<String, String> compactMap;
+
+    @Setup
+    public void generateEnvironment() {
+        environment = SyntheticEnvironment.generate(variables).source().getVariables();
+        treeMap = buildTreeMap()[0];
+        compactMap = buildCompactMap()[0];
+        String[] names = environment.keySet().toArray(new String[0]);
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            // Three hits for each miss
+            lookups[i] = i % 4 == 3 ? "MISSING_" + i : names[random.nextInt(names.length)];
+        }
+    }
+
+    @Benchmark
+    public NavigableMap<String, String>[] buildTreeMap() {
+        TreeMap<String, String> variables = new TreeMap<>(environment);
+        TreeMap<String, String> names = new TreeMap<>();
+        for (String key : variables.keySet()) {
+            names.put(key, "");
+        }
+        return maps(variables, names);
+    }
+
+    @Benchmark
+    public NavigableMap<String, String>[] buildCompactMap() {
+        String[] names = environment.keySet().toArray(new String[0]);
+        CompactEnvMap variables = CompactEnvMap.of(names, names.length, environment, null);
+        return maps(variables, variables.namesOnly());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getTreeMap(Blackhole blackhole) {
+        lookUp(treeMap, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getCompactMap(Blackhole blackhole) {
+        lookUp(compactMap, blackhole);
+    }
+
+    @Benchmark
+    public int rangeTreeMap() {
+        return iterate(treeMap);
+    }
+
+    @Benchmark
+    public int rangeCompactMap() {
+        return iterate(compactMap);
+    }
+
+    private void lookUp(NavigableMap<String, String> map, Blackhole blackhole) {
+        for (String name : lookups) {
+            blackhole.consume(map.get(name));
+        }
+    }
+
+    private static int iterate(NavigableMap<String, String> map) {
+        int length = 0;
+        for (Map.Entry<String, String> entry : map.subMap(PREFIX, true, PREFIX_END, false).entrySet()) {
+            length += entry.getValue().length();
+        }
+        return length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NavigableMap<String, String>[] maps(NavigableMap<String, String> variables,
+                                                       NavigableMap<String, String> names) {
+        return new NavigableMap[] {variables, names};
+    }
+}
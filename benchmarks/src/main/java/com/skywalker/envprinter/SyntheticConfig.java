@@ -0,0 +1,42 @@
+package com.skywalker.envprinter;
+
+import java.util.Random;
+
+/**
+ * Generates deterministic configuration text resembling large generated {@code application-*.yml} files.
+ */
+final class SyntheticConfig {
+
+    private static final String[] KEYS = {"url", "username", "password", "timeout", "pool-size", "endpoint", "enabled"};
+
+    private SyntheticConfig() {
+    }
+
+    /**
+     * Builds YAML-like text of roughly the given size. About a third of the values are
+     * placeholders, some with defaults or nested placeholders, and a few lines hold plain text.
+     *
+     * @param size the approximate size in characters
+     * @param random the random source, seeded for reproducible input
+     * @return the generated text
+     */
+    static String yaml(int size, Random random) {
+        StringBuilder builder = new StringBuilder(size + 128);
+        int section = 0;
+        while (builder.length() < size) {
+            builder.append("service").append(section++).append(":\n");
+            for (String key : KEYS) {
+                builder.append("  ").append(key).append(": ");
+                switch (random.nextInt(6)) {
+                    case 0 -> builder.append("${SERVICE_").append(section).append('_').append(key.toUpperCase().replace('-', '_')).append("}");
+                    case 1 -> builder.append("${env.APP_").append(random.nextInt(500)).append(":default-value}");
+                    case 2 -> builder.append("${PRIMARY_").append(random.nextInt(100)).append(":${FALLBACK_").append(random.nextInt(100)).append("}}");
+                    case 3 -> builder.append("${spring.application.name}");
+                    default -> builder.append("some plain value that is long enough to matter ").append(random.nextInt());
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.skywalker.envprinter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic environments shaped like container environments: mostly injected service variables,
+ * a share of OS variables that the starter excludes, and a set of variables the project references.
+ */
+final class SyntheticEnvironment {
+
+    private static final String[] OS_VARIABLES = {"LANG", "TERM", "SHELL", "SHLVL", "TEMP", "TMP", "DISPLAY", "LC_ALL"};
+
+    private final Map<String, String> variables;
+    private final Set<String> usedVariables;
+
+    private SyntheticEnvironment(Map<String, String> variables, Set<String> usedVariables) {
+        this.variables = variables;
+        this.usedVariables = usedVariables;
+    }
+
+    /**
+     * Generates the given number of variables; one in ten is referenced by the project.
+     */
+    static SyntheticEnvironment generate(int size) {
+        Random random = new Random(42);
+        Map<String, String> variables = new HashMap<>();
+        Set<String> used = new HashSet<>();
+        for (String name : OS_VARIABLES) {
+            variables.put(name, "os-value");
+        }
+        for (int i = 0; variables.size() < size; i++) {
+            String name = switch (i % 4) {
+                case 0 -> "KAFKA_BROKER_" + i + "_SERVICE_HOST";
+                case 1 -> "DB_POOL_" + i;
+                case 2 -> "APP_FEATURE_" + i;
+                default -> "SERVICE_" + i + "_PORT_8080_TCP_ADDR";
+            };
+            variables.put(name, Long.toHexString(random.nextLong()));
+            if (i % 10 == 0) {
+                used.add(name);
+            }
+        }
+        return new SyntheticEnvironment(Collections.unmodifiableMap(variables), used);
+    }
+
+    EnvVariableSource source() {
+        return () -> variables;
+    }
+
+    /**
+     * Scanner that reports the referenced variables without touching the classpath.
+     */
+    EnvUsageScanner scanner() {
+        return new EnvUsageScanner() {
+            @Override
+            public Set<String> scanForUsedEnvVariables() {
+                return new HashSet<>(usedVariables);
+            }
+        };
+    }
+}
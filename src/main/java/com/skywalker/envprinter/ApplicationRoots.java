@@ -0,0 +1,164 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.PatternMatchUtils;
+
+import java.io.IOException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The classpath roots holding the application's own classes and configuration files, as
+ * URL strings ending with {@code /} that resource patterns can be appended to.
+ *
+ * <p>The roots are the directories of the classpath (such as {@code target/classes} or an
+ * exploded layered jar), {@code BOOT-INF/classes} of a Spring Boot executable jar, the code
+ * source of the main application class, and the dependency jars whose file name matches one of
+ * the include patterns. All other dependency jars are left out.</p>
+ */
+final class ApplicationRoots {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationRoots.class);
+
+    private static final String BOOT_CLASSES = "BOOT-INF/classes";
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private final List<String> roots;
+
+    private ApplicationRoots(List<String> roots) {
+        this.roots = roots;
+    }
+
+    /**
+     * Finds the application roots of a class loader.
+     *
+     * @param classLoader the class loader
+     * @param applicationClass the main application class, or {@code null} if unknown
+     * @param includeJars file name patterns of jars to include, such as {@code shared-config-*.jar}
+     * @return the roots in classpath order
+     */
+    static ApplicationRoots find(ClassLoader classLoader, Class<?> applicationClass, List<String> includeJars) {
+        Set<String> roots = new LinkedHashSet<>();
+        if (applicationClass != null) {
+            String root = codeSourceRoot(ClassUtils.getUserClass(applicationClass));
+            if (root != null) {
+                roots.add(root);
+            }
+        }
+        if (classLoader != null) {
+            try {
+                Enumeration<URL> directories = classLoader.getResources("");
+                while (directories.hasMoreElements()) {
+                    String root = directories.nextElement().toString();
+                    if (root.startsWith("file:") || root.contains(BOOT_CLASSES)) {
+                        roots.add(withSlash(root));
+                    }
+                }
+                if (!includeJars.isEmpty()) {
+                    Enumeration<URL> manifests = classLoader.getResources(MANIFEST);
+                    while (manifests.hasMoreElements()) {
+                        String manifest = manifests.nextElement().toString();
+                        String root = manifest.substring(0, manifest.length() - MANIFEST.length());
+                        String jarName = jarName(root);
+                        if (jarName != null && PatternMatchUtils.simpleMatch(includeJars.toArray(new String[0]), jarName)) {
+                            roots.add(root);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Could not resolve application roots: {}", e.getMessage());
+            }
+        }
+        return new ApplicationRoots(new ArrayList<>(roots));
+    }
+
+    /**
+     * Finds the class annotated with {@code @SpringBootApplication} among the bean definitions,
+     * without creating any bean.
+     *
+     * @param beanFactory the bean factory
+     * @return the application class, or {@code null} if there is none
+     */
+    static Class<?> findApplicationClass(ListableBeanFactory beanFactory) {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            if (beanFactory.findAnnotationOnBean(beanName, SpringBootApplication.class, false) != null) {
+                Class<?> type = beanFactory.getType(beanName, false);
+                if (type != null) {
+                    return ClassUtils.getUserClass(type);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the roots in classpath order
+     */
+    List<String> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Checks whether a resource URL lies within one of the roots.
+     *
+     * @param url the resource URL
+     * @return true if the resource belongs to the application
+     */
+    boolean contains(String url) {
+        for (String root : roots) {
+            if (url.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the root holding a class: its directory, its jar, or {@code BOOT-INF/classes} in an
+     * executable jar, whose code source URL already points there.
+     */
+    private static String codeSourceRoot(Class<?> type) {
+        try {
+            CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                return null;
+            }
+            String location = codeSource.getLocation().toString();
+            if (location.startsWith("file:") && location.endsWith(".jar")) {
+                return "jar:" + location + "!/";
+            }
+            return withSlash(location);
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the file name of the innermost jar of a jar root URL, such as {@code lib.jar} for
+     * {@code jar:nested:/app.jar/!BOOT-INF/lib/lib.jar!/}.
+     */
+    static String jarName(String root) {
+        int end = root.lastIndexOf(".jar");
+        if (end < 0) {
+            return null;
+        }
+        end += ".jar".length();
+        // The name starts after the last path separator, or after the scheme of a relative URL
+        int start = Math.max(root.lastIndexOf('/', end - 1), root.lastIndexOf(':', end - 1));
+        return root.substring(start + 1, end);
+    }
+
+    private static String withSlash(String url) {
+        return url.endsWith("/") ? url : url + "/";
+    }
+}
@@ -0,0 +1,308 @@
+package com.skywalker.envprinter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Minimal class-file parser that finds environment variable references in compiled classes
+ * without loading them.
+ *
+ * <p>Only the constant pool is always parsed. Fields and methods are visited only when the
+ * constant pool references {@code System.getenv(String)} or the {@code @Value} annotation,
+ * so classes that use neither are rejected after a single forward pass.</p>
+ *
+ * <p>Instances are not thread-safe; each scanning thread uses its own reader.</p>
+ */
+final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final byte[] SYSTEM_CLASS = ascii("java/lang/System");
+    private static final byte[] GETENV_NAME = ascii("getenv");
+    private static final byte[] GETENV_DESCRIPTOR = ascii("(Ljava/lang/String;)Ljava/lang/String;");
+    private static final byte[] VALUE_DESCRIPTOR = ascii("Lorg/springframework/beans/factory/annotation/Value;");
+    private static final byte[] VALUE_ELEMENT = ascii("value");
+    private static final byte[] CODE_ATTRIBUTE = ascii("Code");
+    private static final byte[] VISIBLE_ANNOTATIONS = ascii("RuntimeVisibleAnnotations");
+    private static final byte[] VISIBLE_PARAMETER_ANNOTATIONS = ascii("RuntimeVisibleParameterAnnotations");
+
+    private static final int TAG_UTF8 = 1;
+    private static final int TAG_LONG = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_CLASS = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_METHODREF = 10;
+    private static final int TAG_NAME_AND_TYPE = 12;
+
+    private static final int OP_LDC = 0x12;
+    private static final int OP_LDC_W = 0x13;
+    private static final int OP_INVOKESTATIC = 0xb8;
+
+    private byte[] buf;
+    private int[] cpOffsets = new int[256];
+    private int cpCount;
+    private boolean[] getenvRefs = new boolean[256];
+    private int valueDescriptorIndex;
+    private Consumer<String> sink;
+
+    /**
+     * Parses a class file and reports every environment variable it references.
+     *
+     * @param classFile buffer holding the class file bytes
+     * @param length number of valid bytes in the buffer
+     * @param sink receives each detected variable name
+     * @return false if the bytes are not a class file
+     */
+    boolean read(byte[] classFile, int length, Consumer<String> sink) {
+        if (length < 10 || readInt(classFile, 0) != MAGIC) {
+            return false;
+        }
+        this.buf = classFile;
+        this.sink = sink;
+        try {
+            int offset = readConstantPool();
+            boolean hasGetenv = markGetenvReferences();
+            if (!hasGetenv && valueDescriptorIndex == 0) {
+                return true;
+            }
+            offset += 6; // access_flags, this_class, super_class
+            offset += 2 + 2 * readUnsignedShort(offset);
+            offset = readMembers(offset, hasGetenv);
+            readMembers(offset, hasGetenv);
+            return true;
+        } catch (IndexOutOfBoundsException | IllegalStateException e) {
+            // Truncated or malformed class file, report whatever was found so far
+            return false;
+        } finally {
+            this.buf = null;
+            this.sink = null;
+        }
+    }
+
+    private int readConstantPool() {
+        cpCount = readUnsignedShort(8);
+        if (cpOffsets.length < cpCount) {
+            cpOffsets = new int[cpCount];
+            getenvRefs = new boolean[cpCount];
+        }
+        valueDescriptorIndex = 0;
+        int offset = 10;
+        for (int i = 1; i < cpCount; i++) {
+            cpOffsets[i] = offset;
+            int tag = buf[offset] & 0xFF;
+            switch (tag) {
+                case TAG_UTF8 -> {
+                    int length = readUnsignedShort(offset + 1);
+                    if (utf8Equals(i, VALUE_DESCRIPTOR)) {
+                        valueDescriptorIndex = i;
+                    }
+                    offset += 3 + length;
+                }
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> offset += 5;
+                case TAG_LONG, TAG_DOUBLE -> {
+                    // 8-byte constants take two slots, the second one is never referenced
+                    cpOffsets[i + 1] = offset;
+                    offset += 9;
+                    i++;
+                }
+                case TAG_CLASS, TAG_STRING, 16, 19, 20 -> offset += 3;
+                case 15 -> offset += 4;
+                default -> throw new IllegalStateException("Unknown constant pool tag " + tag);
+            }
+        }
+        return offset;
+    }
+
+    private boolean markGetenvReferences() {
+        boolean found = false;
+        for (int i = 1; i < cpCount; i++) {
+            int offset = cpOffsets[i];
+            getenvRefs[i] = false;
+            if ((buf[offset] & 0xFF) != TAG_METHODREF) {
+                continue;
+            }
+            int classOffset = cpOffsets[readUnsignedShort(offset + 1)];
+            int nameAndTypeOffset = cpOffsets[readUnsignedShort(offset + 3)];
+            if (utf8Equals(readUnsignedShort(classOffset + 1), SYSTEM_CLASS)
+                    && (buf[nameAndTypeOffset] & 0xFF) == TAG_NAME_AND_TYPE
+                    && utf8Equals(readUnsignedShort(nameAndTypeOffset + 1), GETENV_NAME)
+                    && utf8Equals(readUnsignedShort(nameAndTypeOffset + 3), GETENV_DESCRIPTOR)) {
+                getenvRefs[i] = true;
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reads a fields or methods table, inspecting the attributes that can hold references.
+     */
+    private int readMembers(int offset, boolean hasGetenv) {
+        int count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            int attributeCount = readUnsignedShort(offset + 6);
+            offset += 8;
+            for (int j = 0; j < attributeCount; j++) {
+                int nameIndex = readUnsignedShort(offset);
+                int length = readInt(buf, offset + 2);
+                int start = offset + 6;
+                if (hasGetenv && utf8Equals(nameIndex, CODE_ATTRIBUTE)) {
+                    readCode(start + 8, readInt(buf, start + 4));
+                } else if (valueDescriptorIndex != 0 && utf8Equals(nameIndex, VISIBLE_ANNOTATIONS)) {
+                    readAnnotations(start);
+                } else if (valueDescriptorIndex != 0 && utf8Equals(nameIndex, VISIBLE_PARAMETER_ANNOTATIONS)) {
+                    int parameters = buf[start] & 0xFF;
+                    int position = start + 1;
+                    for (int p = 0; p < parameters; p++) {
+                        position = readAnnotations(position);
+                    }
+                }
+                offset = start + length;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Walks a method body looking for {@code ldc "NAME"} immediately followed by
+     * {@code invokestatic System.getenv}.
+     */
+    private void readCode(int codeStart, int codeLength) {
+        int pc = 0;
+        int pendingString = 0;
+        while (pc < codeLength) {
+            int offset = codeStart + pc;
+            int opcode = buf[offset] & 0xFF;
+            int constant = 0;
+            if (opcode == OP_LDC) {
+                constant = buf[offset + 1] & 0xFF;
+            } else if (opcode == OP_LDC_W) {
+                constant = readUnsignedShort(offset + 1);
+            } else if (opcode == OP_INVOKESTATIC && pendingString != 0
+                    && getenvRefs[readUnsignedShort(offset + 1)]) {
+                String varName = readUtf8(readUnsignedShort(cpOffsets[pendingString] + 1)).trim();
+                sink.accept(EnvReferenceExtractor.trimEnvVarName(varName));
+            }
+            pendingString = constant != 0 && (buf[cpOffsets[constant]] & 0xFF) == TAG_STRING ? constant : 0;
+            pc += instructionLength(opcode, pc, offset);
+        }
+    }
+
+    private int instructionLength(int opcode, int pc, int offset) {
+        switch (opcode) {
+            case 0x10, 0x12, 0x15, 0x16, 0x17, 0x18, 0x19, 0x36, 0x37, 0x38, 0x39, 0x3a, 0xa9, 0xbc:
+                return 2;
+            case 0x11, 0x13, 0x14, 0x84, 0xa7, 0xa8, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8,
+                    0xbb, 0xbd, 0xc0, 0xc1, 0xc6, 0xc7:
+                return 3;
+            case 0xc5:
+                return 4;
+            case 0xb9, 0xba, 0xc8, 0xc9:
+                return 5;
+            case 0xc4: // wide
+                return (buf[offset + 1] & 0xFF) == 0x84 ? 6 : 4;
+            case 0xaa: { // tableswitch
+                int padding = 3 - (pc & 3);
+                int base = offset + 1 + padding;
+                int low = readInt(buf, base + 4);
+                int high = readInt(buf, base + 8);
+                return 1 + padding + 12 + 4 * (high - low + 1);
+            }
+            case 0xab: { // lookupswitch
+                int padding = 3 - (pc & 3);
+                int pairs = readInt(buf, offset + 1 + padding + 4);
+                return 1 + padding + 8 + 8 * pairs;
+            }
+            default:
+                return opcode >= 0x99 && opcode <= 0xa6 ? 3 : 1;
+        }
+    }
+
+    private int readAnnotations(int offset) {
+        int count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            offset = readAnnotation(offset);
+        }
+        return offset;
+    }
+
+    private int readAnnotation(int offset) {
+        boolean isValue = readUnsignedShort(offset) == valueDescriptorIndex;
+        int pairs = readUnsignedShort(offset + 2);
+        offset += 4;
+        for (int i = 0; i < pairs; i++) {
+            int nameIndex = readUnsignedShort(offset);
+            offset += 2;
+            if (isValue && (buf[offset] & 0xFF) == 's' && utf8Equals(nameIndex, VALUE_ELEMENT)) {
+                EnvReferenceExtractor.extractPlaceholders(readUtf8(readUnsignedShort(offset + 1)), sink);
+            }
+            offset = skipElementValue(offset);
+        }
+        return offset;
+    }
+
+    private int skipElementValue(int offset) {
+        int tag = buf[offset] & 0xFF;
+        switch (tag) {
+            case 'e':
+                return offset + 5;
+            case '@':
+                return readAnnotationSkipping(offset + 1);
+            case '[': {
+                int count = readUnsignedShort(offset + 1);
+                offset += 3;
+                for (int i = 0; i < count; i++) {
+                    offset = skipElementValue(offset);
+                }
+                return offset;
+            }
+            default:
+                return offset + 3;
+        }
+    }
+
+    private int readAnnotationSkipping(int offset) {
+        int pairs = readUnsignedShort(offset + 2);
+        offset += 4;
+        for (int i = 0; i < pairs; i++) {
+            offset = skipElementValue(offset + 2);
+        }
+        return offset;
+    }
+
+    private boolean utf8Equals(int index, byte[] expected) {
+        if (index <= 0 || index >= cpCount) {
+            return false;
+        }
+        int offset = cpOffsets[index];
+        if ((buf[offset] & 0xFF) != TAG_UTF8 || readUnsignedShort(offset + 1) != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buf[offset + 3 + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readUtf8(int index) {
+        int offset = cpOffsets[index];
+        return new String(buf, offset + 3, readUnsignedShort(offset + 1), StandardCharsets.UTF_8);
+    }
+
+    private int readUnsignedShort(int offset) {
+        return ((buf[offset] & 0xFF) << 8) | (buf[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
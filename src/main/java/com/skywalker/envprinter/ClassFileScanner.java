@@ -0,0 +1,318 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Scans compiled classes under a set of package prefixes for {@code System.getenv("VAR")}
+ * calls and {@code @Value("${VAR}")} annotations.
+ *
+ * <p>Every jar and directory contributing to the packages is scanned as its own fork-join task,
+ * and directories are split further per sub-package, so large classpaths use all available cores.</p>
+ */
+final class ClassFileScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassFileScanner.class);
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final ThreadLocal<ScanBuffers> BUFFERS = ThreadLocal.withInitial(ScanBuffers::new);
+
+    private final ClassLoader classLoader;
+    private final int parallelism;
+    private final Counts counts = new Counts();
+
+    ClassFileScanner(ClassLoader classLoader, int parallelism) {
+        this.classLoader = classLoader;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return the number of class files read by this scanner so far
+     */
+    long getClassesRead() {
+        return counts.classes.sum();
+    }
+
+    /**
+     * @return the number of class file bytes read by this scanner so far
+     */
+    long getBytesRead() {
+        return counts.bytes.sum();
+    }
+
+    /**
+     * Scans all classes below the given package prefixes.
+     * An empty collection scans the directory roots of the classpath.
+     *
+     * @param packages the package prefixes to scan
+     * @return the detected environment variable names
+     */
+    Set<String> scan(Collection<String> packages) {
+        Set<String> found = new HashSet<>();
+        for (Set<String> names : scanRoots(findRoots(packages)).values()) {
+            found.addAll(names);
+        }
+        return found;
+    }
+
+    /**
+     * Scans the given class roots in parallel.
+     *
+     * @param roots the roots to scan, keyed by URL
+     * @return the detected environment variable names of each root, keyed like the input
+     */
+    Map<String, Set<String>> scanRoots(Map<String, URL> roots) {
+        if (roots.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new RootsTask(roots, counts));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Resolves every classpath location that contains one of the packages, keyed by URL.
+     * Nested packages already covered by a broader prefix are skipped.
+     *
+     * @param packages the package prefixes to scan; empty for the directory roots of the classpath
+     * @return the class roots keyed by URL
+     */
+    Map<String, URL> findRoots(Collection<String> packages) {
+        Set<String> paths = new TreeSet<>();
+        for (String packageName : packages) {
+            String path = packageName.trim().replace('.', '/');
+            if (!path.isEmpty() && !path.endsWith("/")) {
+                path = path + "/";
+            }
+            paths.add(path);
+        }
+        if (paths.isEmpty()) {
+            paths.add("");
+        }
+
+        Map<String, URL> roots = new LinkedHashMap<>();
+        String previous = null;
+        for (String path : paths) {
+            if (previous != null && path.startsWith(previous)) {
+                continue;
+            }
+            previous = path;
+            try {
+                Enumeration<URL> urls = classLoader.getResources(path);
+                while (urls.hasMoreElements()) {
+                    URL url = urls.nextElement();
+                    roots.putIfAbsent(url.toString(), url);
+                }
+            } catch (IOException e) {
+                logger.debug("Could not resolve package path {}: {}", path, e.getMessage());
+            }
+        }
+        return roots;
+    }
+
+    private static Set<String> merge(List<? extends RecursiveTask<Set<String>>> tasks) {
+        Set<String> result = new HashSet<>();
+        for (RecursiveTask<Set<String>> task : tasks) {
+            result.addAll(task.join());
+        }
+        return result;
+    }
+
+    /**
+     * Forks one task per classpath root and collects the results per root.
+     */
+    private static final class RootsTask extends RecursiveTask<Map<String, Set<String>>> {
+
+        private final Map<String, URL> roots;
+        private final Counts counts;
+
+        RootsTask(Map<String, URL> roots, Counts counts) {
+            this.roots = roots;
+            this.counts = counts;
+        }
+
+        @Override
+        protected Map<String, Set<String>> compute() {
+            Map<String, RecursiveTask<Set<String>>> tasks = new LinkedHashMap<>();
+            for (Map.Entry<String, URL> root : roots.entrySet()) {
+                RecursiveTask<Set<String>> task = "file".equals(root.getValue().getProtocol())
+                        ? DirectoryTask.forUrl(root.getValue(), counts)
+                        : new JarTask(root.getValue(), counts);
+                if (task != null) {
+                    tasks.put(root.getKey(), task);
+                }
+            }
+            invokeAll(tasks.values());
+            Map<String, Set<String>> found = new LinkedHashMap<>();
+            for (Map.Entry<String, RecursiveTask<Set<String>>> task : tasks.entrySet()) {
+                found.put(task.getKey(), task.getValue().join());
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Scans the class files of one directory and forks a task per sub-directory.
+     */
+    private static final class DirectoryTask extends RecursiveTask<Set<String>> {
+
+        private final File directory;
+        private final Counts counts;
+
+        DirectoryTask(File directory, Counts counts) {
+            this.directory = directory;
+            this.counts = counts;
+        }
+
+        static DirectoryTask forUrl(URL url, Counts counts) {
+            try {
+                return new DirectoryTask(new File(url.toURI()), counts);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                logger.debug("Skipping unsupported class root {}: {}", url, e.getMessage());
+                return null;
+            }
+        }
+
+        @Override
+        protected Set<String> compute() {
+            Set<String> found = new HashSet<>();
+            File[] children = directory.listFiles();
+            if (children == null) {
+                return found;
+            }
+            List<DirectoryTask> subTasks = new ArrayList<>();
+            ScanBuffers buffers = BUFFERS.get();
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    subTasks.add(new DirectoryTask(child, counts));
+                } else if (child.getName().endsWith(CLASS_SUFFIX)) {
+                    try (InputStream in = new FileInputStream(child)) {
+                        counts.add(buffers.scan(in, found));
+                    } catch (IOException e) {
+                        logger.debug("Could not read class file {}: {}", child, e.getMessage());
+                    }
+                }
+            }
+            invokeAll(subTasks);
+            found.addAll(merge(subTasks));
+            return found;
+        }
+    }
+
+    /**
+     * Scans the class files of one jar below the entry path of its URL.
+     */
+    private static final class JarTask extends RecursiveTask<Set<String>> {
+
+        private final URL url;
+        private final Counts counts;
+
+        JarTask(URL url, Counts counts) {
+            this.url = url;
+            this.counts = counts;
+        }
+
+        @Override
+        protected Set<String> compute() {
+            EnvPrinterEvents.ResourceScan event = EnvPrinterEvents.beginResourceScan();
+            Set<String> found = new HashSet<>();
+            long bytes = 0;
+            try {
+                URLConnection connection = url.openConnection();
+                if (!(connection instanceof JarURLConnection jarConnection)) {
+                    logger.debug("Skipping unsupported class root {}", url);
+                    return found;
+                }
+                jarConnection.setUseCaches(false);
+                String prefix = jarConnection.getEntryName() != null ? jarConnection.getEntryName() : "";
+                ScanBuffers buffers = BUFFERS.get();
+                try (JarFile jarFile = jarConnection.getJarFile()) {
+                    Enumeration<JarEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        JarEntry entry = entries.nextElement();
+                        String name = entry.getName();
+                        if (name.startsWith(prefix) && name.endsWith(CLASS_SUFFIX)) {
+                            try (InputStream in = jarFile.getInputStream(entry)) {
+                                int length = buffers.scan(in, found);
+                                counts.add(length);
+                                bytes += length;
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Could not scan jar {}: {}", url, e.getMessage());
+            }
+            EnvPrinterEvents.endResourceScan(event, "classes", url.toString(), bytes, found.size());
+            return found;
+        }
+    }
+
+    /**
+     * Per-thread read buffer and class-file reader, reused across classes.
+     */
+    private static final class ScanBuffers {
+
+        private final ClassFileReader reader = new ClassFileReader();
+        private byte[] buffer = new byte[16 * 1024];
+
+        /**
+         * @return the length of the class file
+         */
+        int scan(InputStream in, Set<String> found) throws IOException {
+            int length = 0;
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    byte[] larger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, larger, 0, length);
+                    buffer = larger;
+                }
+            }
+            reader.read(buffer, length, found::add);
+            return length;
+        }
+    }
+
+    /**
+     * Class files and bytes read, updated concurrently by the scan tasks.
+     */
+    private static final class Counts {
+
+        private final LongAdder classes = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        void add(int length) {
+            classes.increment();
+            bytes.add(length);
+        }
+    }
+}
@@ -0,0 +1,812 @@
+package com.skywalker.envprinter;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable sorted map of environment variables backed by two parallel arrays, sorted by name.
+ *
+ * <p>A {@link TreeMap} spends a node of about 40 bytes per entry, and the snapshot used to hold
+ * one for the variables, one for the masked view and one for the names-only view. Here each view
+ * is two array slots per entry, and views of one snapshot share the array of names: the masked
+ * view only adds a values array, and the names-only view adds nothing, since its values are all
+ * the shared {@link #EMPTY_VALUE}. A map built with the previous map of the same service reuses
+ * its instances of equal names, so consecutive snapshots also share them, without the global
+ * string table of {@link String#intern()}.</p>
+ *
+ * <p>Lookups are binary searches. Range views such as {@link #subMap} and {@link #tailMap}, key
+ * sets and descending views are index ranges over the same arrays, created without copying. Range
+ * views of a range view are clamped to it rather than rejecting keys outside of it. All mutators
+ * throw {@link UnsupportedOperationException}; values may be {@code null}.</p>
+ */
+final class CompactEnvMap extends AbstractMap<String, String> implements NavigableMap<String, String> {
+
+    /**
+     * Value of every entry of a names-only view.
+     */
+    static final String EMPTY_VALUE = "";
+
+    static final CompactEnvMap EMPTY = new CompactEnvMap(new String[0], new String[0], 0, 0);
+
+    private final String[] keys;
+    /**
+     * Values by index, or {@code null} when every value is {@link #EMPTY_VALUE}.
+     */
+    private final String[] values;
+    private final int from;
+    private final int to;
+
+    private CompactEnvMap(String[] keys, String[] values, int from, int to) {
+        this.keys = keys;
+        this.values = values;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates a map of some names and their values in a map.
+     *
+     * @param names the distinct names, in any order; the array is sorted and kept by the map
+     * @param count the number of names used from the start of the array
+     * @param source the values by name; absent names map to {@code null}
+     * @param previous map whose name instances are reused for equal names, or {@code null}
+     * @return the map
+     */
+    static CompactEnvMap of(String[] names, int count, Map<String, String> source, CompactEnvMap previous) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        String[] keys = count == names.length ? names : Arrays.copyOf(names, count);
+        Arrays.sort(keys);
+        String[] values = new String[count];
+        int j = previous != null ? previous.from : 0;
+        int end = previous != null ? previous.to : 0;
+        for (int i = 0; i < count; i++) {
+            values[i] = source.get(keys[i]);
+            // Both are sorted, so the previous names are walked once alongside
+            while (j < end && previous.keys[j].compareTo(keys[i]) < 0) {
+                j++;
+            }
+            if (j < end && previous.keys[j].equals(keys[i])) {
+                keys[i] = previous.keys[j];
+            }
+        }
+        return new CompactEnvMap(keys, values, 0, count);
+    }
+
+    /**
+     * Creates a map with the entries of a sorted map.
+     *
+     * @param sorted the entries, sorted by name
+     * @return the map
+     */
+    static CompactEnvMap copyOf(Map<String, String> sorted) {
+        if (sorted instanceof CompactEnvMap compact) {
+            return compact;
+        }
+        String[] names = new String[sorted.size()];
+        String[] values = new String[names.length];
+        int i = 0;
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            names[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        for (int j = 1; j < names.length; j++) {
+            if (names[j - 1].compareTo(names[j]) >= 0) {
+                throw new IllegalArgumentException("Entries are not sorted by name");
+            }
+        }
+        return new CompactEnvMap(names, values, 0, names.length);
+    }
+
+    /**
+     * Returns a map with the same names and other values, sharing the names of this map.
+     *
+     * @param replacer the new value of each entry by its index, from 0 to {@code size() - 1}
+     * @return the map
+     */
+    CompactEnvMap withValues(IntFunction<String> replacer) {
+        String[] replaced = new String[to];
+        for (int i = from; i < to; i++) {
+            replaced[i] = replacer.apply(i - from);
+        }
+        return new CompactEnvMap(keys, replaced, from, to);
+    }
+
+    /**
+     * Returns a names-only view whose values are all {@link #EMPTY_VALUE}, sharing the names of this map.
+     *
+     * @return the view
+     */
+    CompactEnvMap namesOnly() {
+        return values == null ? this : new CompactEnvMap(keys, null, from, to);
+    }
+
+    /**
+     * @param index the index of an entry, from 0 to {@code size() - 1}
+     * @return the name of the entry
+     */
+    String keyAt(int index) {
+        return keys[from + index];
+    }
+
+    /**
+     * @param index the index of an entry, from 0 to {@code size() - 1}
+     * @return the value of the entry
+     */
+    String valueAt(int index) {
+        return value(from + index);
+    }
+
+    private String value(int i) {
+        return values != null ? values[i] : EMPTY_VALUE;
+    }
+
+    private Map.Entry<String, String> entry(int i) {
+        return new AbstractMap.SimpleImmutableEntry<>(keys[i], value(i));
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String name)) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(keys, from, to, name);
+        return i >= 0 ? i : -1;
+    }
+
+    /**
+     * Returns the index of the first name at or after a name, or after it when not inclusive.
+     */
+    private int lowerBound(String key, boolean inclusive) {
+        int i = Arrays.binarySearch(keys, from, to, key);
+        return i >= 0 ? (inclusive ? i : i + 1) : -i - 1;
+    }
+
+    /**
+     * Returns the index after the last name at or before a name, or before it when not inclusive.
+     */
+    private int upperBound(String key, boolean inclusive) {
+        int i = Arrays.binarySearch(keys, from, to, key);
+        return i >= 0 ? (inclusive ? i + 1 : i) : -i - 1;
+    }
+
+    private CompactEnvMap range(int start, int end) {
+        if (start == from && end == to) {
+            return this;
+        }
+        return new CompactEnvMap(keys, values, start, Math.max(start, end));
+    }
+
+    /**
+     * Iterates over the names of the index range, from the last one when descending.
+     */
+    private Iterator<String> keyIterator(boolean descending) {
+        return new Cursor<>(descending) {
+            @Override
+            String get(int i) {
+                return keys[i];
+            }
+        };
+    }
+
+    private Iterator<String> valueIterator(boolean descending) {
+        return new Cursor<>(descending) {
+            @Override
+            String get(int i) {
+                return value(i);
+            }
+        };
+    }
+
+    private Iterator<Map.Entry<String, String>> entryIterator(boolean descending) {
+        return new Cursor<>(descending) {
+            @Override
+            Map.Entry<String, String> get(int i) {
+                return entry(i);
+            }
+        };
+    }
+
+    private boolean containsEntry(Object o) {
+        if (!(o instanceof Map.Entry<?, ?> e)) {
+            return false;
+        }
+        int i = indexOf(e.getKey());
+        return i >= 0 && Objects.equals(value(i), e.getValue());
+    }
+
+    private Map.Entry<String, String> entryOrNull(int i) {
+        return i >= from && i < to ? entry(i) : null;
+    }
+
+    private static String keyOrNull(Map.Entry<String, String> entry) {
+        return entry != null ? entry.getKey() : null;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return to == from;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? value(i) : null;
+    }
+
+    @Override
+    public Comparator<? super String> comparator() {
+        return null;
+    }
+
+    @Override
+    public String firstKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keys[from];
+    }
+
+    @Override
+    public String lastKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keys[to - 1];
+    }
+
+    @Override
+    public Map.Entry<String, String> firstEntry() {
+        return entryOrNull(from);
+    }
+
+    @Override
+    public Map.Entry<String, String> lastEntry() {
+        return entryOrNull(to - 1);
+    }
+
+    @Override
+    public Map.Entry<String, String> lowerEntry(String key) {
+        return entryOrNull(lowerBound(key, true) - 1);
+    }
+
+    @Override
+    public String lowerKey(String key) {
+        return keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public Map.Entry<String, String> floorEntry(String key) {
+        return entryOrNull(upperBound(key, true) - 1);
+    }
+
+    @Override
+    public String floorKey(String key) {
+        return keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public Map.Entry<String, String> ceilingEntry(String key) {
+        return entryOrNull(lowerBound(key, true));
+    }
+
+    @Override
+    public String ceilingKey(String key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public Map.Entry<String, String> higherEntry(String key) {
+        return entryOrNull(lowerBound(key, false));
+    }
+
+    @Override
+    public String higherKey(String key) {
+        return keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public Map.Entry<String, String> pollFirstEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map.Entry<String, String> pollLastEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompactEnvMap subMap(String fromKey, boolean fromInclusive, String toKey, boolean toInclusive) {
+        if (fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return range(lowerBound(fromKey, fromInclusive), upperBound(toKey, toInclusive));
+    }
+
+    @Override
+    public CompactEnvMap headMap(String toKey, boolean inclusive) {
+        return range(from, upperBound(toKey, inclusive));
+    }
+
+    @Override
+    public CompactEnvMap tailMap(String fromKey, boolean inclusive) {
+        return range(lowerBound(fromKey, inclusive), to);
+    }
+
+    @Override
+    public CompactEnvMap subMap(String fromKey, String toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public CompactEnvMap headMap(String toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public CompactEnvMap tailMap(String fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    @Override
+    public NavigableMap<String, String> descendingMap() {
+        return new DescendingMap(this);
+    }
+
+    @Override
+    public NavigableSet<String> navigableKeySet() {
+        return new KeySet(this, false);
+    }
+
+    @Override
+    public NavigableSet<String> descendingKeySet() {
+        return new KeySet(this, true);
+    }
+
+    @Override
+    public NavigableSet<String> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public Collection<String> values() {
+        return new Values(this, false);
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new EntrySet(this, false);
+    }
+
+    /**
+     * Compares two compact maps element by element, without creating entries.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof CompactEnvMap other)) {
+            return super.equals(o);
+        }
+        if (size() != other.size()) {
+            return false;
+        }
+        for (int i = from, j = other.from; i < to; i++, j++) {
+            if (!keys[i].equals(other.keys[j]) || !Objects.equals(value(i), other.value(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash += keys[i].hashCode() ^ Objects.hashCode(value(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Iterator over the index range of the map, in either direction.
+     */
+    private abstract class Cursor<T> implements Iterator<T> {
+
+        private final boolean descending;
+        private int next;
+
+        Cursor(boolean descending) {
+            this.descending = descending;
+            this.next = descending ? to - 1 : from;
+        }
+
+        abstract T get(int i);
+
+        @Override
+        public boolean hasNext() {
+            return descending ? next >= from : next < to;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return get(descending ? next-- : next++);
+        }
+    }
+
+    /**
+     * Set of the names of a map, in either order.
+     */
+    private static final class KeySet extends AbstractSet<String> implements NavigableSet<String> {
+
+        private final CompactEnvMap map;
+        private final boolean descending;
+
+        KeySet(CompactEnvMap map, boolean descending) {
+            this.map = map;
+            this.descending = descending;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return map.keyIterator(descending);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public Comparator<? super String> comparator() {
+            return descending ? Collections.reverseOrder() : null;
+        }
+
+        @Override
+        public String first() {
+            return descending ? map.lastKey() : map.firstKey();
+        }
+
+        @Override
+        public String last() {
+            return descending ? map.firstKey() : map.lastKey();
+        }
+
+        @Override
+        public String lower(String key) {
+            return descending ? map.higherKey(key) : map.lowerKey(key);
+        }
+
+        @Override
+        public String floor(String key) {
+            return descending ? map.ceilingKey(key) : map.floorKey(key);
+        }
+
+        @Override
+        public String ceiling(String key) {
+            return descending ? map.floorKey(key) : map.ceilingKey(key);
+        }
+
+        @Override
+        public String higher(String key) {
+            return descending ? map.lowerKey(key) : map.higherKey(key);
+        }
+
+        @Override
+        public String pollFirst() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String pollLast() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NavigableSet<String> descendingSet() {
+            return new KeySet(map, !descending);
+        }
+
+        @Override
+        public Iterator<String> descendingIterator() {
+            return map.keyIterator(!descending);
+        }
+
+        @Override
+        public NavigableSet<String> subSet(String fromElement, boolean fromInclusive, String toElement,
+                                           boolean toInclusive) {
+            if (!descending) {
+                return new KeySet(map.subMap(fromElement, fromInclusive, toElement, toInclusive), false);
+            }
+            if (fromElement.compareTo(toElement) < 0) {
+                throw new IllegalArgumentException("fromElement < toElement");
+            }
+            return new KeySet(map.subMap(toElement, toInclusive, fromElement, fromInclusive), true);
+        }
+
+        @Override
+        public NavigableSet<String> headSet(String toElement, boolean inclusive) {
+            return new KeySet(descending ? map.tailMap(toElement, inclusive) : map.headMap(toElement, inclusive),
+                    descending);
+        }
+
+        @Override
+        public NavigableSet<String> tailSet(String fromElement, boolean inclusive) {
+            return new KeySet(descending ? map.headMap(fromElement, inclusive) : map.tailMap(fromElement, inclusive),
+                    descending);
+        }
+
+        @Override
+        public NavigableSet<String> subSet(String fromElement, String toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public NavigableSet<String> headSet(String toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public NavigableSet<String> tailSet(String fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+
+    /**
+     * Values of a map, in either order of their names.
+     */
+    private static final class Values extends AbstractCollection<String> {
+
+        private final CompactEnvMap map;
+        private final boolean descending;
+
+        Values(CompactEnvMap map, boolean descending) {
+            this.map = map;
+            this.descending = descending;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return map.valueIterator(descending);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+    }
+
+    /**
+     * Entries of a map, in either order of their names.
+     */
+    private static final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+        private final CompactEnvMap map;
+        private final boolean descending;
+
+        EntrySet(CompactEnvMap map, boolean descending) {
+            this.map = map;
+            this.descending = descending;
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return map.entryIterator(descending);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsEntry(o);
+        }
+    }
+
+    /**
+     * Map in descending order of names, over the index range of a map. Every navigation method
+     * is answered by its mirror on the ascending map.
+     */
+    private static final class DescendingMap extends AbstractMap<String, String>
+            implements NavigableMap<String, String> {
+
+        private final CompactEnvMap map;
+
+        DescendingMap(CompactEnvMap map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public String get(Object key) {
+            return map.get(key);
+        }
+
+        @Override
+        public Comparator<? super String> comparator() {
+            return Collections.reverseOrder();
+        }
+
+        @Override
+        public String firstKey() {
+            return map.lastKey();
+        }
+
+        @Override
+        public String lastKey() {
+            return map.firstKey();
+        }
+
+        @Override
+        public Map.Entry<String, String> firstEntry() {
+            return map.lastEntry();
+        }
+
+        @Override
+        public Map.Entry<String, String> lastEntry() {
+            return map.firstEntry();
+        }
+
+        @Override
+        public Map.Entry<String, String> lowerEntry(String key) {
+            return map.higherEntry(key);
+        }
+
+        @Override
+        public String lowerKey(String key) {
+            return map.higherKey(key);
+        }
+
+        @Override
+        public Map.Entry<String, String> floorEntry(String key) {
+            return map.ceilingEntry(key);
+        }
+
+        @Override
+        public String floorKey(String key) {
+            return map.ceilingKey(key);
+        }
+
+        @Override
+        public Map.Entry<String, String> ceilingEntry(String key) {
+            return map.floorEntry(key);
+        }
+
+        @Override
+        public String ceilingKey(String key) {
+            return map.floorKey(key);
+        }
+
+        @Override
+        public Map.Entry<String, String> higherEntry(String key) {
+            return map.lowerEntry(key);
+        }
+
+        @Override
+        public String higherKey(String key) {
+            return map.lowerKey(key);
+        }
+
+        @Override
+        public Map.Entry<String, String> pollFirstEntry() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map.Entry<String, String> pollLastEntry() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompactEnvMap descendingMap() {
+            return map;
+        }
+
+        @Override
+        public NavigableSet<String> navigableKeySet() {
+            return new KeySet(map, true);
+        }
+
+        @Override
+        public NavigableSet<String> descendingKeySet() {
+            return new KeySet(map, false);
+        }
+
+        @Override
+        public NavigableSet<String> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override
+        public Collection<String> values() {
+            return new Values(map, true);
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new EntrySet(map, true);
+        }
+
+        @Override
+        public DescendingMap subMap(String fromKey, boolean fromInclusive, String toKey, boolean toInclusive) {
+            if (fromKey.compareTo(toKey) < 0) {
+                throw new IllegalArgumentException("fromKey < toKey");
+            }
+            return new DescendingMap(map.subMap(toKey, toInclusive, fromKey, fromInclusive));
+        }
+
+        @Override
+        public DescendingMap headMap(String toKey, boolean inclusive) {
+            return new DescendingMap(map.tailMap(toKey, inclusive));
+        }
+
+        @Override
+        public DescendingMap tailMap(String fromKey, boolean inclusive) {
+            return new DescendingMap(map.headMap(fromKey, inclusive));
+        }
+
+        @Override
+        public DescendingMap subMap(String fromKey, String toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public DescendingMap headMap(String toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        public DescendingMap tailMap(String fromKey) {
+            return tailMap(fromKey, true);
+        }
+    }
+}
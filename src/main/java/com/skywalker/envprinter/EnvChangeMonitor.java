@@ -0,0 +1,64 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically asks the {@link EnvFilterService} to check for environment changes, so that
+ * {@link EnvChangedEvent}s are published even when no endpoint is called.
+ * Runs on a single daemon thread while the application context is running.
+ */
+public class EnvChangeMonitor implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvChangeMonitor.class);
+
+    private final EnvFilterService filterService;
+    private final Duration interval;
+    private volatile ScheduledExecutorService executor;
+
+    public EnvChangeMonitor(EnvFilterService filterService, Duration interval) {
+        this.filterService = filterService;
+        this.interval = interval;
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "env-printer-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::check, millis, millis, TimeUnit.MILLISECONDS);
+        executor = scheduler;
+        logger.debug("Checking for environment changes every {}", interval);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = executor;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    private void check() {
+        try {
+            filterService.checkForChanges();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to check for environment changes: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.skywalker.envprinter;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.SortedSet;
+
+/**
+ * Published by {@link EnvFilterService} when a rebuilt snapshot differs from the previous one.
+ * Carries the versions of both snapshots and the names of the added, removed and changed
+ * variables only, never their values, so listeners can react incrementally without diffing
+ * full maps. Listeners that need values read them from {@link EnvFilterService#getSnapshot()}.
+ */
+public class EnvChangedEvent extends ApplicationEvent {
+
+    private final long previousVersion;
+    private final long currentVersion;
+    private final SortedSet<String> added;
+    private final SortedSet<String> removed;
+    private final SortedSet<String> changed;
+
+    EnvChangedEvent(Object source, long previousVersion, long currentVersion,
+                    SortedSet<String> added, SortedSet<String> removed, SortedSet<String> changed) {
+        super(source);
+        this.previousVersion = previousVersion;
+        this.currentVersion = currentVersion;
+        this.added = Collections.unmodifiableSortedSet(added);
+        this.removed = Collections.unmodifiableSortedSet(removed);
+        this.changed = Collections.unmodifiableSortedSet(changed);
+    }
+
+    /**
+     * @return the version of the snapshot before the change
+     */
+    public long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    /**
+     * @return the version of the snapshot after the change
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * @return the names of variables that became visible
+     */
+    public SortedSet<String> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return the names of variables that are no longer visible
+     */
+    public SortedSet<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return the names of variables whose value changed
+     */
+    public SortedSet<String> getChanged() {
+        return changed;
+    }
+}
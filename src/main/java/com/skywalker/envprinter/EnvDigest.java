@@ -0,0 +1,137 @@
+package com.skywalker.envprinter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Compact digest of a snapshot's endpoint view: its version, a hash of the whole view and a
+ * 64-bit hash of each value, keyed by name. Comparing the digests of several instances shows which
+ * names differ without transferring any value.
+ *
+ * <p>The digest covers exactly what the endpoints serve, so it reveals no more than they do:
+ * masked secrets hash as their mask, and with {@code show-values=false} only the set of names is
+ * compared. Encoded as JSON:</p>
+ * <pre>
+ * {"version":3,"hash":"9b2f...","keys":{"DB_URL":"c2a1f0e4b7d3a958",...}}
+ * </pre>
+ */
+public final class EnvDigest {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Hash of a {@code null} value, which stands for an unset project variable.
+     */
+    private static final String NULL_HASH = "null";
+
+    private final long version;
+    private final String hash;
+    private final SortedMap<String, String> keys;
+
+    /**
+     * Creates a digest.
+     *
+     * @param version the snapshot version
+     * @param hash the hash of the whole endpoint view
+     * @param keys the hash of each value, keyed by name
+     */
+    public EnvDigest(long version, String hash, Map<String, String> keys) {
+        this.version = version;
+        this.hash = hash;
+        this.keys = Collections.unmodifiableSortedMap(new TreeMap<>(keys));
+    }
+
+    /**
+     * Computes the digest of a snapshot's endpoint view.
+     */
+    static EnvDigest of(EnvSnapshot snapshot) {
+        NavigableMap<String, String> view = snapshot.getEndpointView();
+        SortedMap<String, String> keys = new TreeMap<>();
+        for (Map.Entry<String, String> entry : view.entrySet()) {
+            keys.put(entry.getKey(), valueHash(entry.getValue()));
+        }
+        String etag = snapshot.getEtag();
+        return new EnvDigest(snapshot.getVersion(), etag.substring(1, etag.length() - 1), keys);
+    }
+
+    /**
+     * Parses the JSON encoding of a digest.
+     *
+     * @param json the UTF-8 JSON
+     * @return the digest
+     * @throws IllegalArgumentException if the JSON is not a digest
+     */
+    public static EnvDigest parse(byte[] json) {
+        Map<String, Object> object = EnvJsonReader.readObject(new String(json, StandardCharsets.UTF_8));
+        if (!(object.get("version") instanceof Number version) || !(object.get("hash") instanceof String hash)
+                || !(object.get("keys") instanceof Map<?, ?> keys)) {
+            throw new IllegalArgumentException("Not an environment digest");
+        }
+        Map<String, String> hashes = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : keys.entrySet()) {
+            hashes.put((String) entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        return new EnvDigest(version.longValue(), hash, hashes);
+    }
+
+    /**
+     * Hashes one value with 64-bit FNV-1a over its characters, as 16 hex digits.
+     *
+     * @param value the value, or {@code null}
+     * @return the hash
+     */
+    static String valueHash(String value) {
+        if (value == null) {
+            return NULL_HASH;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        String hex = Long.toHexString(hash);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * @return the version of the snapshot, incremented on every content change of one instance
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the hash of the whole endpoint view; instances with equal hashes serve the same view
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the hash of each value, sorted by name
+     */
+    public SortedMap<String, String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Encodes the digest as UTF-8 JSON.
+     *
+     * @return the JSON bytes
+     */
+    public byte[] toJson() {
+        StringBuilder json = new StringBuilder(64 + keys.size() * 40);
+        json.append("{\"version\":").append(version).append(",\"hash\":");
+        EnvJsonWriter.appendString(json, hash);
+        json.append(",\"keys\":");
+        json.append(new String(EnvJsonWriter.toJson(keys), StandardCharsets.UTF_8));
+        json.append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,175 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Reports environment drift across a fleet of instances while transferring as little as possible.
+ *
+ * <p>Each collection first fetches the compact {@link EnvDigest} of every instance. When all
+ * digests carry the same hash the fleet is consistent and nothing else is transferred. Otherwise
+ * only the names whose per-name hashes differ are fetched, in one call per instance, and only
+ * when the value cached from an earlier collection no longer matches the digest. Transfer thus
+ * grows with the number of changed names rather than with instances times variables.</p>
+ *
+ * <p>Values are the endpoint views of the instances, so secrets are compared by their mask and
+ * nothing is compared but names when values are hidden. Instances whose digest or entries cannot
+ * be fetched are reported as unreachable and left out of the comparison. Collections are
+ * serialized; instances are safe to share between threads.</p>
+ */
+public class EnvDriftAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvDriftAggregator.class);
+
+    private final EnvSnapshotTransport transport;
+
+    /**
+     * Values fetched by earlier collections per instance, keyed by name, with the hash of each value.
+     */
+    private final Map<String, Map<String, CachedValue>> cache = new HashMap<>();
+
+    public EnvDriftAggregator(EnvSnapshotTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Compares the environments of some instances.
+     *
+     * @param instances the instance identifiers understood by the transport
+     * @return the drift report
+     */
+    public synchronized EnvDriftReport collect(Collection<String> instances) {
+        Map<String, EnvDigest> digests = new LinkedHashMap<>();
+        Map<String, String> unreachable = new LinkedHashMap<>();
+        for (String instance : instances) {
+            try {
+                digests.put(instance, transport.fetchDigest(instance));
+            } catch (IOException | RuntimeException e) {
+                unreachable.put(instance, reason(e));
+            }
+        }
+        cache.keySet().retainAll(digests.keySet());
+
+        TreeSet<String> names = new TreeSet<>();
+        for (EnvDigest digest : digests.values()) {
+            names.addAll(digest.getKeys().keySet());
+        }
+        List<String> drifted = new ArrayList<>();
+        if (digests.values().stream().map(EnvDigest::getHash).distinct().count() > 1) {
+            for (String name : names) {
+                if (isDrifted(name, digests.values())) {
+                    drifted.add(name);
+                }
+            }
+        }
+
+        int fetched = 0;
+        for (Map.Entry<String, EnvDigest> entry : new ArrayList<>(digests.entrySet())) {
+            String instance = entry.getKey();
+            try {
+                fetched += refresh(instance, entry.getValue(), drifted);
+            } catch (IOException | RuntimeException e) {
+                unreachable.put(instance, reason(e));
+                digests.remove(instance);
+                cache.remove(instance);
+            }
+        }
+
+        SortedMap<String, Map<String, String>> drift = new TreeMap<>();
+        for (String name : drifted) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (Map.Entry<String, EnvDigest> entry : digests.entrySet()) {
+                if (entry.getValue().getKeys().containsKey(name)) {
+                    values.put(entry.getKey(), cache.get(entry.getKey()).get(name).value);
+                }
+            }
+            drift.put(name, values);
+        }
+        Map<String, Long> versions = new LinkedHashMap<>();
+        digests.forEach((instance, digest) -> versions.put(instance, digest.getVersion()));
+        EnvDriftReport report = new EnvDriftReport(versions, unreachable, drift, names.size(), fetched);
+        logger.debug("Compared {} environment variables across {} instances: {} drifted, {} entries fetched, {} unreachable",
+                names.size(), versions.size(), drift.size(), fetched, unreachable.size());
+        return report;
+    }
+
+    /**
+     * Checks whether a name is missing from some digest or hashes differently on some instance.
+     */
+    private static boolean isDrifted(String name, Collection<EnvDigest> digests) {
+        String first = null;
+        for (EnvDigest digest : digests) {
+            String hash = digest.getKeys().get(name);
+            if (hash == null) {
+                return true;
+            }
+            if (first == null) {
+                first = hash;
+            } else if (!first.equals(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Brings the cached values of the drifted names of one instance up to date with its digest,
+     * fetching the stale ones in a single call.
+     *
+     * @return the number of entries fetched
+     */
+    private int refresh(String instance, EnvDigest digest, List<String> drifted) throws IOException {
+        Map<String, CachedValue> values = cache.computeIfAbsent(instance, key -> new HashMap<>());
+        values.keySet().retainAll(digest.getKeys().keySet());
+        List<String> stale = new ArrayList<>();
+        for (String name : drifted) {
+            String hash = digest.getKeys().get(name);
+            CachedValue cached = values.get(name);
+            if (hash != null && (cached == null || !cached.hash.equals(hash))) {
+                stale.add(name);
+            }
+        }
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        Map<String, String> entries = transport.fetchEntries(instance, stale);
+        for (String name : stale) {
+            String value = entries.get(name);
+            if (!entries.containsKey(name)) {
+                // Removed since the digest was taken; compared as unset until the next collection
+                values.put(name, new CachedValue(null, null));
+            } else {
+                // Hashed from the value itself, which may be newer than the digest
+                values.put(name, new CachedValue(EnvDigest.valueHash(value), value));
+            }
+        }
+        return entries.size();
+    }
+
+    private static String reason(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static final class CachedValue {
+
+        private final String hash;
+        private final String value;
+
+        CachedValue(String hash, String value) {
+            this.hash = Objects.requireNonNullElse(hash, "");
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.skywalker.envprinter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Drift of the environment across instances, as collected by {@link EnvDriftAggregator}.
+ *
+ * <p>For each name whose value is not the same on every reachable instance, {@link #getDrift()}
+ * holds the value of each instance: a {@code null} value stands for an unset project variable,
+ * and an instance without an entry does not report the name at all.</p>
+ */
+public final class EnvDriftReport {
+
+    private final Map<String, Long> versions;
+    private final Map<String, String> unreachable;
+    private final SortedMap<String, Map<String, String>> drift;
+    private final int keysCompared;
+    private final int entriesFetched;
+
+    EnvDriftReport(Map<String, Long> versions, Map<String, String> unreachable,
+                   SortedMap<String, Map<String, String>> drift, int keysCompared, int entriesFetched) {
+        this.versions = Collections.unmodifiableMap(versions);
+        this.unreachable = Collections.unmodifiableMap(unreachable);
+        this.drift = Collections.unmodifiableSortedMap(drift);
+        this.keysCompared = keysCompared;
+        this.entriesFetched = entriesFetched;
+    }
+
+    /**
+     * @return the snapshot version of each reachable instance, in the order the instances were given
+     */
+    public Map<String, Long> getVersions() {
+        return versions;
+    }
+
+    /**
+     * @return the reason each unreachable instance was left out of the comparison
+     */
+    public Map<String, String> getUnreachable() {
+        return unreachable;
+    }
+
+    /**
+     * @return the value of each instance for every drifted name, sorted by name
+     */
+    public SortedMap<String, Map<String, String>> getDrift() {
+        return drift;
+    }
+
+    /**
+     * @return the number of distinct names compared across the reachable instances
+     */
+    public int getKeysCompared() {
+        return keysCompared;
+    }
+
+    /**
+     * @return the number of entries transferred to build this report; entries of earlier reports are reused
+     */
+    public int getEntriesFetched() {
+        return entriesFetched;
+    }
+
+    /**
+     * @return true if at least one name differs between reachable instances
+     */
+    public boolean hasDrift() {
+        return !drift.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "EnvDriftReport{instances=" + versions.keySet() + ", unreachable=" + unreachable.keySet()
+                + ", drifted=" + drift.keySet() + ", keysCompared=" + keysCompared
+                + ", entriesFetched=" + entriesFetched + "}";
+    }
+}
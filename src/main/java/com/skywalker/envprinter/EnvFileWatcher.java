@@ -0,0 +1,194 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches mounted config trees and {@code .env} files and asks the {@link EnvFilterService} to
+ * re-read them when they change.
+ *
+ * <p>A single daemon thread waits on one {@link WatchService}. Events are batched: after the first
+ * event, the thread keeps collecting until no event arrived for the debounce interval, then checks
+ * for changes once. A Kubernetes ConfigMap update, which swaps the {@code ..data} symlink and
+ * produces a burst of create and delete events, therefore triggers a single re-read.</p>
+ */
+public class EnvFileWatcher implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvFileWatcher.class);
+
+    private final EnvFilterService filterService;
+    private final List<Path> configTrees;
+    private final List<Path> dotenvFiles;
+    private final Duration debounce;
+    private volatile WatchService watchService;
+    private volatile Thread thread;
+
+    public EnvFileWatcher(EnvFilterService filterService, List<Path> configTrees, List<Path> dotenvFiles,
+                          Duration debounce) {
+        this.filterService = filterService;
+        this.configTrees = List.copyOf(configTrees);
+        this.dotenvFiles = List.copyOf(dotenvFiles);
+        this.debounce = debounce;
+    }
+
+    @Override
+    public void start() {
+        if (configTrees.isEmpty() && dotenvFiles.isEmpty()) {
+            logger.debug("No config trees or .env files to watch");
+            return;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            Map<WatchKey, Path> treeKeys = new HashMap<>();
+            Map<WatchKey, Set<Path>> dotenvKeys = new HashMap<>();
+            for (Path tree : configTrees) {
+                registerTree(service, tree, treeKeys);
+            }
+            for (Path dotenv : dotenvFiles) {
+                Path file = dotenv.toAbsolutePath();
+                Path directory = file.getParent();
+                if (directory != null && Files.isDirectory(directory)) {
+                    WatchKey key = register(service, directory);
+                    dotenvKeys.computeIfAbsent(key, k -> new HashSet<>()).add(file.getFileName());
+                }
+            }
+            watchService = service;
+            Thread watcher = new Thread(() -> watch(service, treeKeys, dotenvKeys), "env-printer-watch");
+            watcher.setDaemon(true);
+            thread = watcher;
+            watcher.start();
+            logger.debug("Watching config trees {} and .env files {}", configTrees, dotenvFiles);
+        } catch (IOException e) {
+            logger.warn("Could not watch config trees and .env files: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.debug("Could not close watch service: {}", e.getMessage());
+            }
+            watchService = null;
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    private void watch(WatchService service, Map<WatchKey, Path> treeKeys, Map<WatchKey, Set<Path>> dotenvKeys) {
+        long debounceMillis = Math.max(0, debounce.toMillis());
+        try {
+            while (true) {
+                boolean relevant = drain(service, service.take(), treeKeys, dotenvKeys);
+                WatchKey next;
+                while ((next = service.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(service, next, treeKeys, dotenvKeys);
+                }
+                if (relevant) {
+                    check();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Stopped watching config trees and .env files");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Consumes the events of a key and re-arms it. Keys of deleted directories can no longer be
+     * re-armed and are forgotten.
+     *
+     * @return true if an event may affect a watched source
+     */
+    private boolean drain(WatchService service, WatchKey key, Map<WatchKey, Path> treeKeys,
+                          Map<WatchKey, Set<Path>> dotenvKeys) {
+        boolean relevant = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (treeKeys.containsKey(key)) {
+                relevant = true;
+                Path child = directory.resolve(name);
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    registerTree(service, child, treeKeys);
+                }
+            }
+            Set<Path> dotenvNames = dotenvKeys.get(key);
+            if (dotenvNames != null && dotenvNames.contains(name)) {
+                relevant = true;
+            }
+        }
+        if (!key.reset()) {
+            treeKeys.remove(key);
+            dotenvKeys.remove(key);
+        }
+        return relevant;
+    }
+
+    private void check() {
+        try {
+            filterService.checkForChanges();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh environment after file change: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Registers a config tree directory and its real sub-directories. Symbolic links such as
+     * {@code ..data} are not followed; changes to them are seen as events in the parent.
+     */
+    private static void registerTree(WatchService service, Path tree, Map<WatchKey, Path> treeKeys) {
+        if (!Files.isDirectory(tree)) {
+            return;
+        }
+        try (Stream<Path> directories = Files.walk(tree)) {
+            directories.filter(path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)).forEach(directory -> {
+                try {
+                    treeKeys.put(register(service, directory), directory);
+                } catch (IOException e) {
+                    logger.debug("Could not watch {}: {}", directory, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Could not watch config tree {}: {}", tree, e.getMessage());
+        }
+    }
+
+    private static WatchKey register(WatchService service, Path directory) throws IOException {
+        return directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+}
@@ -2,20 +2,44 @@ package com.skywalker.envprinter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service for filtering and retrieving environment variables based on configuration.
  * When project-only mode is enabled, scans the entire project to identify which
  * environment variables are actually used.
+ *
+ * <p>The filtered view is held as an immutable {@link EnvSnapshot} that is served directly
+ * and only rebuilt when its inputs change or {@link #reload()} is called. Secret values are
+ * masked once per snapshot according to {@code env.printer.mask}, which is read on construction.</p>
+ *
+ * <p>The project scan is single-flight: concurrent callers share one scan in progress and the
+ * result is published through an atomic reference. {@link #refresh()} rescans in the background
+ * of readers, which keep seeing the previous result until the new one is swapped in.</p>
+ *
+ * <p>A rebuild that yields the same content keeps the previous snapshot, so its version and ETag
+ * stay stable. When the content differs, the added, removed and changed names are logged and
+ * published as an {@link EnvChangedEvent}. Readers never wait for a rebuild running on another
+ * thread; they keep getting the previous snapshot until the new one is published.</p>
  */
-public class EnvFilterService {
+public class EnvFilterService implements ApplicationEventPublisherAware {
 
     private static final Logger logger = LoggerFactory.getLogger(EnvFilterService.class);
 
@@ -52,11 +76,36 @@ public class EnvFilterService {
 
     private final EnvPrinterProperties properties;
     private final EnvUsageScanner scanner;
-    private Set<String> cachedUsedVars = null;
+    private final EnvVariableSource variableSource;
+    private final EnvPrinterMetrics metrics;
+    private final EnvValueMasker masker;
+    private final AtomicReference<CompletableFuture<Set<String>>> usedVarsScan = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Set<String>>> refreshScan = new AtomicReference<>();
+    private volatile NameFilter nameFilter;
+    private volatile SnapshotState snapshotState;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private ApplicationEventPublisher eventPublisher;
 
     public EnvFilterService(EnvPrinterProperties properties, EnvUsageScanner scanner) {
+        this(properties, scanner, EnvVariableSource.SYSTEM);
+    }
+
+    public EnvFilterService(EnvPrinterProperties properties, EnvUsageScanner scanner, EnvVariableSource variableSource) {
+        this(properties, scanner, variableSource, EnvPrinterMetrics.NOOP);
+    }
+
+    public EnvFilterService(EnvPrinterProperties properties, EnvUsageScanner scanner, EnvVariableSource variableSource,
+                            EnvPrinterMetrics metrics) {
         this.properties = properties;
         this.scanner = scanner;
+        this.variableSource = variableSource;
+        this.metrics = metrics;
+        this.masker = EnvValueMasker.compile(properties.getMask());
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -65,13 +114,7 @@ public class EnvFilterService {
      * @return filtered and sorted map of environment variables
      */
     public Map<String, String> getFilteredEnvironment() {
-        Map<String, String> allEnv = System.getenv();
-        
-        if (properties.isProjectOnly()) {
-            return filterProjectOnly(allEnv);
-        } else {
-            return filterExcluded(allEnv);
-        }
+        return getSnapshot().getVariables();
     }
 
     /**
@@ -81,106 +124,390 @@ public class EnvFilterService {
      * @return filtered and sorted map of environment variables (value may be empty string if showValues is false)
      */
     public Map<String, String> getFilteredEnvironmentForEndpoint() {
-        Map<String, String> filteredEnv = getFilteredEnvironment();
-        
-        if (!properties.isShowValues()) {
-            // Return map with empty string values (just showing keys)
-            return filteredEnv.keySet().stream()
-                    .collect(Collectors.toMap(
-                            key -> key,
-                            key -> "",
-                            (e1, e2) -> e1,
-                            TreeMap::new
-                    ));
+        return getSnapshot().getEndpointView();
+    }
+
+    /**
+     * Checks whether the endpoints should report a pending scan instead of triggering it.
+     * This is the case in project-only mode while a background startup scan has not completed.
+     * A failed scan is no longer pending: the next request retries it and reports its error.
+     *
+     * @return true while the startup scan is pending
+     */
+    public boolean isScanPending() {
+        if (!properties.isProjectOnly() || properties.getStartupMode() == EnvPrinterProperties.StartupMode.SYNC) {
+            return false;
         }
-        
-        return filteredEnv;
+        CompletableFuture<Set<String>> scan = usedVarsScan.get();
+        return scan == null || !scan.isDone();
     }
 
     /**
-     * Filters environment variables to show only those actually used in the project.
-     * Scans configuration files and source code to identify referenced variables.
+     * Returns the current snapshot of the filtered environment.
+     * The snapshot is reused as long as its inputs are unchanged: the variables returned by the
+     * {@link EnvVariableSource}, the detected project variables, the include/exclude patterns and
+     * the project-only and show-values settings. Any change to these triggers a rebuild.
+     *
+     * @return the current immutable snapshot
      */
-    private Map<String, String> filterProjectOnly(Map<String, String> env) {
-        // Scan for used variables (cache the result for performance)
-        if (cachedUsedVars == null) {
-            logger.info("Scanning project for environment variable usage...");
-            cachedUsedVars = scanner.scanForUsedEnvVariables();
-            
-            // Log the detected environment variables
-            if (cachedUsedVars.isEmpty()) {
-                logger.info("No environment variables detected in project");
+    public EnvSnapshot getSnapshot() {
+        return snapshot(false);
+    }
+
+    private EnvSnapshot snapshot(boolean wait) {
+        Map<String, String> env = variableSource.getVariables();
+        SnapshotState state = snapshotState;
+        if (state != null && state.isCurrent(env, properties, nameFilter(),
+                properties.isProjectOnly() ? usedVariables() : null)) {
+            metrics.recordCacheLookup("snapshot", true);
+            return state.snapshot;
+        }
+        return rebuild(false, wait);
+    }
+
+    /**
+     * Returns the current snapshot if it can be served without scanning, rebuilding or waiting
+     * for a lock, as required on non-blocking threads.
+     *
+     * @return the current snapshot, or {@code null} if it has to be built first
+     */
+    public EnvSnapshot getSnapshotIfCurrent() {
+        SnapshotState state = snapshotState;
+        if (state == null) {
+            return null;
+        }
+        Set<String> usedVars = null;
+        if (properties.isProjectOnly()) {
+            CompletableFuture<Set<String>> scan = usedVarsScan.get();
+            if (!isDone(scan)) {
+                return null;
+            }
+            usedVars = scan.join();
+        }
+        if (!state.isCurrent(variableSource.getVariables(), properties, nameFilter(), usedVars)) {
+            return null;
+        }
+        metrics.recordCacheLookup("snapshot", true);
+        return state.snapshot;
+    }
+
+    EnvVariableSource getVariableSource() {
+        return variableSource;
+    }
+
+    /**
+     * Rebuilds the snapshot from the current inputs, even if none of them changed.
+     *
+     * @return the new snapshot
+     */
+    public EnvSnapshot reload() {
+        return rebuild(true, true);
+    }
+
+    /**
+     * Lets the variable source re-read cached values and rebuilds the snapshot if anything changed,
+     * publishing an {@link EnvChangedEvent} for the differences. While a background startup scan is
+     * pending, only the source is refreshed; the first snapshot is built from its values once the
+     * scan completes.
+     *
+     * @return the current snapshot, or {@code null} while the startup scan is pending
+     */
+    public EnvSnapshot checkForChanges() {
+        variableSource.refresh();
+        if (isScanPending()) {
+            return null;
+        }
+        // Wait for a rebuild in progress, which may have read the variables before the refresh
+        return snapshot(true);
+    }
+
+    /**
+     * Rescans the project and atomically replaces the detected variables. Readers are not blocked
+     * and keep using the previous result until the scan completes; the next snapshot request then
+     * rebuilds from the new result. Concurrent calls share one rescan.
+     *
+     * @return the newly detected variables
+     */
+    public Set<String> refresh() {
+        CompletableFuture<Set<String>> pending = new CompletableFuture<>();
+        CompletableFuture<Set<String>> inFlight = refreshScan.compareAndExchange(null, pending);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            Set<String> usedVars = scan();
+            usedVarsScan.set(CompletableFuture.completedFuture(usedVars));
+            pending.complete(usedVars);
+            return usedVars;
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshScan.set(null);
+        }
+    }
+
+    private EnvSnapshot rebuild(boolean force, boolean wait) {
+        SnapshotState previous = snapshotState;
+        if (wait || previous == null) {
+            snapshotLock.lock();
+        } else if (!snapshotLock.tryLock()) {
+            // Another thread is rebuilding: serve the previous snapshot instead of waiting
+            return previous.snapshot;
+        }
+        SnapshotState current;
+        try {
+            previous = snapshotState;
+            current = rebuildSnapshot(force);
+        } finally {
+            snapshotLock.unlock();
+        }
+        // Listeners run outside the lock so they may read the snapshot again
+        if (previous != null && current.snapshot != previous.snapshot) {
+            publishChanges(previous.snapshot, current.snapshot);
+        }
+        return current.snapshot;
+    }
+
+    private SnapshotState rebuildSnapshot(boolean force) {
+        Map<String, String> env = variableSource.getVariables();
+        NameFilter filter = nameFilter();
+        boolean projectOnly = properties.isProjectOnly();
+        boolean showValues = properties.isShowValues();
+        Set<String> usedVars = projectOnly ? usedVariables() : null;
+        SnapshotState state = snapshotState;
+        if (!force && state != null && state.isCurrent(env, properties, filter, usedVars)) {
+            metrics.recordCacheLookup("snapshot", true);
+            return state;
+        }
+        if (!force) {
+            metrics.recordCacheLookup("snapshot", false);
+        }
+        EnvPrinterEvents.SnapshotRebuild event = EnvPrinterEvents.beginSnapshotRebuild();
+        // Names equal to those of the current snapshot reuse its instances
+        CompactEnvMap previous = state != null ? state.snapshot.getUnmaskedVariables() : null;
+        NavigableMap<String, String> filtered = projectOnly
+                ? filterProjectOnly(env, usedVars, filter, previous)
+                : filterExcluded(env, filter, previous);
+        EnvSnapshot snapshot;
+        if (!force && state != null && state.showValues == showValues && state.snapshot.hasContent(filtered)) {
+            // Inputs changed but the visible content did not: keep version and encoded view
+            snapshot = state.snapshot;
+        } else {
+            long version = state != null ? state.snapshot.getVersion() + 1 : 1;
+            snapshot = new EnvSnapshot(version, filtered, showValues, masker);
+            metrics.recordSnapshotRebuild();
+            logger.debug("Rebuilt environment snapshot version {} with {} variables", version, filtered.size());
+        }
+        EnvPrinterEvents.endSnapshotRebuild(event, snapshot.getVersion(), projectOnly, env.size(), filtered.size(),
+                state == null || snapshot != state.snapshot);
+        state = new SnapshotState(snapshot, env, usedVars, filter, projectOnly, showValues);
+        snapshotState = state;
+        return state;
+    }
+
+    /**
+     * Logs and publishes the differences between two snapshots, if there are any.
+     */
+    private void publishChanges(EnvSnapshot previous, EnvSnapshot current) {
+        if (previous.getContentHash() == current.getContentHash()
+                && previous.getUnmaskedVariables().equals(current.getUnmaskedVariables())) {
+            return;
+        }
+        SortedSet<String> added = new TreeSet<>();
+        SortedSet<String> removed = new TreeSet<>();
+        SortedSet<String> changed = new TreeSet<>();
+        // Both maps are sorted, so a single merge pass finds all differences
+        Iterator<Map.Entry<String, String>> before = previous.getUnmaskedVariables().entrySet().iterator();
+        Iterator<Map.Entry<String, String>> after = current.getUnmaskedVariables().entrySet().iterator();
+        Map.Entry<String, String> left = before.hasNext() ? before.next() : null;
+        Map.Entry<String, String> right = after.hasNext() ? after.next() : null;
+        while (left != null || right != null) {
+            int order = left == null ? 1 : right == null ? -1 : left.getKey().compareTo(right.getKey());
+            if (order < 0) {
+                removed.add(left.getKey());
+                left = before.hasNext() ? before.next() : null;
+            } else if (order > 0) {
+                added.add(right.getKey());
+                right = after.hasNext() ? after.next() : null;
             } else {
-                if (properties.isShowValues()) {
-                    // Build a formatted string with name=value pairs
-                    String detectedVarsWithValues = cachedUsedVars.stream()
-                            .sorted()
-                            .map(varName -> {
-                                String value = env.get(varName);
-                                if (value != null) {
-                                    return varName + "=" + value;
-                                } else {
-                                    return varName + "=<not set>";
-                                }
-                            })
-                            .collect(Collectors.joining(", "));
-                    logger.info("Detected environment variables: {}", detectedVarsWithValues);
-                } else {
-                    // Show only names
-                    String detectedVarNames = cachedUsedVars.stream()
-                            .sorted()
-                            .collect(Collectors.joining(", "));
-                    logger.info("Detected environment variables: {}", detectedVarNames);
+                if (!Objects.equals(left.getValue(), right.getValue())) {
+                    changed.add(left.getKey());
+                }
+                left = before.hasNext() ? before.next() : null;
+                right = after.hasNext() ? after.next() : null;
+            }
+        }
+        logger.info("Environment changed (version {} -> {}): added {}, removed {}, changed {}",
+                previous.getVersion(), current.getVersion(), added, removed, changed);
+        ApplicationEventPublisher publisher = eventPublisher;
+        if (publisher != null) {
+            publisher.publishEvent(new EnvChangedEvent(this, previous.getVersion(), current.getVersion(),
+                    added, removed, changed));
+        }
+    }
+
+    /**
+     * Returns the variables used by the project. The first caller runs the scan; callers arriving
+     * while it is in progress wait for the same result. A failed scan stays published, so that it
+     * is not reported as pending, and is retried by the next caller.
+     */
+    private Set<String> usedVariables() {
+        CompletableFuture<Set<String>> current = usedVarsScan.get();
+        if (current == null || current.isCompletedExceptionally()) {
+            CompletableFuture<Set<String>> pending = new CompletableFuture<>();
+            CompletableFuture<Set<String>> witness = usedVarsScan.compareAndExchange(current, pending);
+            if (witness == current) {
+                try {
+                    pending.complete(scan());
+                } catch (RuntimeException | Error e) {
+                    pending.completeExceptionally(e);
+                    throw e;
                 }
+                current = pending;
+            } else {
+                current = witness;
+            }
+        }
+        return await(current);
+    }
+
+    private Set<String> scan() {
+        logger.info("Scanning project for environment variable usage...");
+        Set<String> usedVars = scanner.scanForUsedEnvVariables();
+
+        // The variables themselves are printed by EnvPrinter; only names are logged here, at debug level
+        if (usedVars.isEmpty()) {
+            logger.info("No environment variables detected in project");
+        } else {
+            logger.info("Detected {} environment variables in project", usedVars.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Detected environment variables: {}", new TreeSet<>(usedVars));
+            }
+        }
+        return usedVars;
+    }
+
+    private static boolean isDone(CompletableFuture<?> future) {
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    private static Set<String> await(CompletableFuture<Set<String>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
         }
-        
-        final Set<String> usedVars = cachedUsedVars;
-        
-        // Build result map including both set and unset variables
-        Map<String, String> result = new TreeMap<>();
-        
-        // Add all detected variables (set or not set)
+    }
+
+    /**
+     * Filters environment variables to show only those actually used in the project.
+     * Scans configuration files and source code to identify referenced variables.
+     */
+    private NavigableMap<String, String> filterProjectOnly(Map<String, String> env, Set<String> usedVars,
+                                                           NameFilter filter, CompactEnvMap previous) {
+        // Include both set and unset variables
+        String[] names = new String[usedVars.size()];
+        int count = 0;
         for (String varName : usedVars) {
-            if (!isHardcodedOsExclusion(varName)) {
-                // Get value from environment, or use null if not set
-                result.put(varName, env.get(varName));
+            if (filter.isVisible(varName)) {
+                names[count++] = varName;
             }
         }
-        
-        return result;
+        // Values come from the environment, null if not set
+        return CompactEnvMap.of(names, count, env, previous);
     }
 
     /**
-     * Filters out hardcoded OS-specific environment variables.
+     * Filters out hardcoded OS-specific and excluded environment variables.
      */
-    private Map<String, String> filterExcluded(Map<String, String> env) {
-        return env.entrySet().stream()
-                .filter(entry -> !isHardcodedOsExclusion(entry.getKey()))
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        TreeMap::new
-                ));
+    private NavigableMap<String, String> filterExcluded(Map<String, String> env, NameFilter filter,
+                                                        CompactEnvMap previous) {
+        String[] names = new String[env.size()];
+        int count = 0;
+        for (String name : env.keySet()) {
+            if (filter.isVisible(name)) {
+                names[count++] = name;
+            }
+        }
+        return CompactEnvMap.of(names, count, env, previous);
     }
 
     /**
-     * Checks if an environment variable is in the hardcoded OS exclusion list.
+     * Returns the compiled name filter, recompiling it only when the configured patterns changed.
      */
-    private boolean isHardcodedOsExclusion(String key) {
-        // Exact match
-        if (HARDCODED_OS_EXCLUSIONS.contains(key)) {
-            return true;
+    private NameFilter nameFilter() {
+        NameFilter filter = nameFilter;
+        List<String> include = properties.getInclude();
+        List<String> exclude = properties.getExclude();
+        if (filter == null || !filter.include.equals(include) || !filter.exclude.equals(exclude)) {
+            filter = new NameFilter(include, exclude);
+            nameFilter = filter;
         }
-        
-        // Prefix match for patterns like PROCESSOR_*, etc.
-        for (String excluded : HARDCODED_OS_EXCLUSIONS) {
-            if (excluded.endsWith("_") && key.startsWith(excluded)) {
-                return true;
-            }
+        return filter;
+    }
+
+    /**
+     * Include and exclude patterns compiled into matchers. A variable is visible when it matches
+     * an include pattern (if any are configured) and matches neither a hardcoded OS exclusion
+     * nor a configured exclude pattern.
+     */
+    private static final class NameFilter {
+
+        private final List<String> include;
+        private final List<String> exclude;
+        private final EnvNameMatcher includeMatcher;
+        private final EnvNameMatcher excludeMatcher;
+
+        NameFilter(List<String> include, List<String> exclude) {
+            this.include = List.copyOf(include);
+            this.exclude = List.copyOf(exclude);
+            List<String> exclusions = new ArrayList<>(HARDCODED_OS_EXCLUSIONS);
+            exclusions.addAll(exclude);
+            this.includeMatcher = EnvNameMatcher.compile(this.include);
+            this.excludeMatcher = EnvNameMatcher.compile(exclusions);
+        }
+
+        boolean isVisible(String key) {
+            return (includeMatcher.isEmpty() || includeMatcher.matches(key)) && !excludeMatcher.matches(key);
+        }
+    }
+
+    /**
+     * The current snapshot together with the inputs it was built from. Inputs are compared by
+     * identity: the system environment, the scan result and the compiled filter are all replaced
+     * rather than mutated when they change.
+     */
+    private static final class SnapshotState {
+
+        private final EnvSnapshot snapshot;
+        private final Map<String, String> env;
+        private final Set<String> usedVars;
+        private final NameFilter filter;
+        private final boolean projectOnly;
+        private final boolean showValues;
+
+        SnapshotState(EnvSnapshot snapshot, Map<String, String> env, Set<String> usedVars,
+                      NameFilter filter, boolean projectOnly, boolean showValues) {
+            this.snapshot = snapshot;
+            this.env = env;
+            this.usedVars = usedVars;
+            this.filter = filter;
+            this.projectOnly = projectOnly;
+            this.showValues = showValues;
+        }
+
+        boolean isCurrent(Map<String, String> env, EnvPrinterProperties properties, NameFilter filter,
+                          Set<String> usedVars) {
+            return this.env == env && this.filter == filter && this.usedVars == usedVars
+                    && this.projectOnly == properties.isProjectOnly()
+                    && this.showValues == properties.isShowValues();
         }
-        
-        return false;
     }
 }
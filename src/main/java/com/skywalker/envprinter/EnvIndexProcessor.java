@@ -0,0 +1,337 @@
+package com.skywalker.envprinter;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementScanner14;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that builds the environment variable usage index at compile time.
+ *
+ * <p>It records {@code @Value("${VAR}")} expressions, {@code System.getenv("VAR")} calls and
+ * placeholders found in the {@code application*.properties}, {@code application*.yml} and
+ * {@code application*.yaml} files of the compilation output, then writes them to
+ * {@value EnvUsageIndex#LOCATION}. When that index is present at runtime,
+ * {@link EnvUsageScanner} reads it instead of scanning the classpath.</p>
+ *
+ * <p>The processor is registered explicitly, through the processor path or {@code -processor},
+ * since recent JDKs no longer run processors found on the compile classpath. It only writes the
+ * index when enabled with the {@code envprinter.index=true} option, since the
+ * runtime trusts the index and no longer scans. Build tools that copy resources to a separate
+ * directory (such as Gradle) can point the processor at it with the {@code envprinter.resourceDirs}
+ * option (comma-separated paths).</p>
+ *
+ * <p>Incremental compilers only hand the processor the sources they recompile, so the references
+ * of an existing index are merged in: those of recompiled sources and configuration files are
+ * replaced, and those of other sources are kept as long as their class file still exists.</p>
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({EnvIndexProcessor.INDEX_OPTION, EnvIndexProcessor.RESOURCE_DIRS_OPTION})
+public class EnvIndexProcessor extends AbstractProcessor {
+
+    /**
+     * Processor option that enables the index when set to {@code true}.
+     */
+    public static final String INDEX_OPTION = "envprinter.index";
+
+    /**
+     * Processor option listing extra directories that contain application configuration files.
+     */
+    public static final String RESOURCE_DIRS_OPTION = "envprinter.resourceDirs";
+
+    private static final String VALUE_ANNOTATION = "org.springframework.beans.factory.annotation.Value";
+
+    private final Map<String, SortedSet<String>> references = new TreeMap<>();
+    private final Set<CompilationUnitTree> scannedUnits = new HashSet<>();
+    /**
+     * Source files compiled in this run, in the form of the locations recorded for them.
+     */
+    private final Set<String> compiledSources = new HashSet<>();
+    private boolean enabled;
+    private Trees trees;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        enabled = Boolean.parseBoolean(processingEnv.getOptions().get(INDEX_OPTION));
+        try {
+            trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            // Not running inside javac: System.getenv calls cannot be detected, annotations still can
+            trees = null;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!enabled) {
+            return false;
+        }
+        if (roundEnv.processingOver()) {
+            Path classOutput = classOutputDirectory();
+            if (classOutput != null) {
+                mergeExistingIndex(classOutput);
+            }
+            scanConfigFiles(classOutput);
+            writeIndex();
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement type) {
+                new ValueAnnotationScanner().scan(type, null);
+                scanGetenvCalls(type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans the compilation unit declaring the given type for {@code System.getenv("VAR")} calls.
+     */
+    private void scanGetenvCalls(TypeElement type) {
+        if (trees == null) {
+            return;
+        }
+        TreePath path = trees.getPath(type);
+        if (path == null || !scannedUnits.add(path.getCompilationUnit())) {
+            return;
+        }
+        CompilationUnitTree unit = path.getCompilationUnit();
+        compiledSources.add(sourceFile(unit));
+        new TreePathScanner<Void, Void>() {
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+                if (isGetenvCall(node)) {
+                    String varName = EnvReferenceExtractor.trimEnvVarName(
+                            ((String) ((LiteralTree) node.getArguments().get(0)).getValue()).trim());
+                    record(varName, location(unit, node));
+                }
+                return super.visitMethodInvocation(node, unused);
+            }
+        }.scan(unit, null);
+    }
+
+    private static boolean isGetenvCall(MethodInvocationTree node) {
+        if (!(node.getMethodSelect() instanceof MemberSelectTree select)
+                || !select.getIdentifier().contentEquals("getenv")
+                || node.getArguments().size() != 1
+                || !(node.getArguments().get(0) instanceof LiteralTree literal)
+                || !(literal.getValue() instanceof String)) {
+            return false;
+        }
+        ExpressionTree target = select.getExpression();
+        if (target instanceof IdentifierTree identifier) {
+            return identifier.getName().contentEquals("System");
+        }
+        return target.toString().equals("java.lang.System");
+    }
+
+    private Path classOutputDirectory() {
+        try {
+            FileObject probe = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", "env-printer.probe");
+            return Paths.get(probe.toUri()).getParent();
+        } catch (IOException | IllegalArgumentException e) {
+            note("Could not locate class output directory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the references of the index left by an earlier compilation whose sources were not
+     * compiled in this run and still have a class file. Configuration files are always rescanned.
+     */
+    private void mergeExistingIndex(Path classOutput) {
+        Path index = classOutput.resolve(EnvUsageIndex.LOCATION);
+        if (!Files.isRegularFile(index)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (line.isEmpty() || line.charAt(0) == '#' || tab < 0) {
+                    continue;
+                }
+                String location = line.substring(tab + 1);
+                int colon = location.lastIndexOf(':');
+                String file = colon >= 0 ? location.substring(0, colon) : location;
+                if (file.endsWith(".java") && !compiledSources.contains(file)
+                        && Files.exists(classOutput.resolve(file.substring(0, file.length() - 5) + ".class"))) {
+                    record(line.substring(0, tab), location);
+                }
+            }
+        } catch (IOException e) {
+            note("Could not read " + index + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scans the application configuration files copied to the class output directory
+     * and any directories passed through {@value #RESOURCE_DIRS_OPTION}.
+     */
+    private void scanConfigFiles(Path classOutput) {
+        List<Path> directories = new ArrayList<>();
+        if (classOutput != null) {
+            directories.add(classOutput);
+        }
+        String extraDirs = processingEnv.getOptions().get(RESOURCE_DIRS_OPTION);
+        if (extraDirs != null) {
+            for (String dir : extraDirs.split(",")) {
+                if (!dir.isBlank()) {
+                    directories.add(Paths.get(dir.trim()));
+                }
+            }
+        }
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                    "application*.{properties,yml,yaml}")) {
+                for (Path file : files) {
+                    scanConfigFile(file);
+                }
+            } catch (IOException e) {
+                note("Could not list " + directory + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void scanConfigFile(Path file) {
+        String fileName = file.getFileName().toString();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                String location = fileName + ":" + (++lineNumber);
+                EnvReferenceExtractor.extract(line, varName -> record(varName, location));
+            }
+        } catch (IOException e) {
+            note("Could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", EnvUsageIndex.LOCATION);
+            try (Writer writer = index.openWriter()) {
+                EnvUsageIndex.write(references, writer);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not write environment variable index: " + e.getMessage());
+        }
+    }
+
+    private void record(String varName, String location) {
+        if (varName != null && !varName.isEmpty()) {
+            references.computeIfAbsent(varName, key -> new TreeSet<>()).add(location);
+        }
+    }
+
+    private String location(Element element) {
+        if (trees != null) {
+            TreePath path = trees.getPath(element);
+            if (path != null) {
+                return location(path.getCompilationUnit(), path.getLeaf());
+            }
+        }
+        return element.getEnclosingElement() + "." + element.getSimpleName();
+    }
+
+    private String location(CompilationUnitTree unit, Tree node) {
+        String file = sourceFile(unit);
+        long position = trees.getSourcePositions().getStartPosition(unit, node);
+        return position >= 0 ? file + ":" + unit.getLineMap().getLineNumber(position) : file;
+    }
+
+    private static String sourceFile(CompilationUnitTree unit) {
+        String packageName = unit.getPackageName() != null ? unit.getPackageName().toString() : "";
+        String fileName = unit.getSourceFile().getName();
+        fileName = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        return packageName.isEmpty() ? fileName : packageName.replace('.', '/') + "/" + fileName;
+    }
+
+    private void note(String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message);
+    }
+
+    /**
+     * Visits fields, methods, constructors and parameters looking for {@code @Value} annotations.
+     */
+    private final class ValueAnnotationScanner extends ElementScanner14<Void, Void> {
+
+        @Override
+        public Void visitVariable(VariableElement element, Void unused) {
+            inspect(element);
+            return super.visitVariable(element, unused);
+        }
+
+        @Override
+        public Void visitExecutable(ExecutableElement element, Void unused) {
+            inspect(element);
+            return super.visitExecutable(element, unused);
+        }
+
+        private void inspect(Element element) {
+            for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+                TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+                if (!annotationType.getQualifiedName().contentEquals(VALUE_ANNOTATION)) {
+                    continue;
+                }
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : annotation.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")
+                            && entry.getValue().getValue() instanceof String expression) {
+                        String location = location(element);
+                        EnvReferenceExtractor.extractPlaceholders(expression, varName -> record(varName, location));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.skywalker.envprinter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal reader for the JSON this library writes: objects whose values are strings, numbers,
+ * {@code null} or nested objects. Arrays and booleans are not supported.
+ */
+final class EnvJsonReader {
+
+    private final String json;
+    private int pos;
+
+    private EnvJsonReader(String json) {
+        this.json = json;
+    }
+
+    /**
+     * Reads a JSON object.
+     *
+     * @param json the JSON text
+     * @return the members in document order; nested objects are maps, numbers are {@link Long}s
+     * @throws IllegalArgumentException if the text is not a supported JSON object
+     */
+    static Map<String, Object> readObject(String json) {
+        EnvJsonReader reader = new EnvJsonReader(json);
+        Map<String, Object> object = reader.object();
+        reader.skipWhitespace();
+        if (reader.pos != json.length()) {
+            throw reader.error("end of input");
+        }
+        return object;
+    }
+
+    private Map<String, Object> object() {
+        expect('{');
+        Map<String, Object> object = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return object;
+            }
+            if (c != ',') {
+                throw error("',' or '}'");
+            }
+        }
+    }
+
+    private Object value() {
+        skipWhitespace();
+        char c = peek();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{') {
+            return object();
+        }
+        if (json.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            int start = pos++;
+            while (pos < json.length() && json.charAt(pos) >= '0' && json.charAt(pos) <= '9') {
+                pos++;
+            }
+            return Long.parseLong(json, start, pos, 10);
+        }
+        throw error("a string, number, null or object");
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > json.length()) {
+                        throw error("four hex digits");
+                    }
+                    value.append((char) Integer.parseInt(json, pos, pos + 4, 16));
+                    pos += 4;
+                }
+                default -> throw error("an escape sequence");
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= json.length()) {
+            throw error("more input");
+        }
+        return json.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            pos--;
+            throw error("'" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("Invalid JSON at offset " + pos + ": expected " + expected);
+    }
+}
@@ -0,0 +1,134 @@
+package com.skywalker.envprinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Minimal JSON encoder for the flat string maps served by the endpoints, as a JSON object or as
+ * newline-delimited JSON.
+ * Avoids a Jackson round trip for a structure that never changes shape.
+ */
+final class EnvJsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Characters buffered before newline-delimited output is written to the stream.
+     */
+    private static final int NDJSON_CHUNK = 8192;
+
+    /**
+     * Body returned by the endpoints while the startup scan is still running.
+     */
+    static final byte[] SCAN_PENDING = "{\"status\":\"SCAN_PENDING\"}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Body returned by the endpoints for a query with invalid parameters.
+     */
+    static final byte[] INVALID_QUERY = "{\"status\":\"INVALID_QUERY\"}".getBytes(StandardCharsets.UTF_8);
+
+    private EnvJsonWriter() {
+    }
+
+    /**
+     * Encodes the map as a UTF-8 JSON object, preserving iteration order.
+     * {@code null} values are written as JSON {@code null}.
+     *
+     * @param map the map to encode
+     * @return the UTF-8 encoded JSON
+     */
+    static byte[] toJson(Map<String, String> map) {
+        return toJson(map.entrySet(), map.size());
+    }
+
+    /**
+     * Encodes the entries as a UTF-8 JSON object, preserving iteration order.
+     *
+     * @param entries the entries to encode
+     * @param sizeHint the expected number of entries
+     * @return the UTF-8 encoded JSON
+     */
+    static byte[] toJson(Iterable<Map.Entry<String, String>> entries, int sizeHint) {
+        StringBuilder json = new StringBuilder(32 + sizeHint * 48);
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> entry : entries) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, entry.getKey());
+            json.append(':');
+            appendValue(json, entry.getValue());
+        }
+        json.append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the entries as newline-delimited JSON, one {@code {"name":...,"value":...}} object
+     * per line. Output is flushed to the stream in chunks, so memory use does not grow with the
+     * number of entries.
+     *
+     * @param entries the entries to write
+     * @param out the stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    static void writeNdjson(Iterable<Map.Entry<String, String>> entries, OutputStream out) throws IOException {
+        StringBuilder line = new StringBuilder(NDJSON_CHUNK + 256);
+        for (Map.Entry<String, String> entry : entries) {
+            appendNdjson(line, entry);
+            if (line.length() >= NDJSON_CHUNK) {
+                out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                line.setLength(0);
+            }
+        }
+        if (line.length() > 0) {
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        out.flush();
+    }
+
+    /**
+     * Appends one entry as a line of newline-delimited JSON.
+     */
+    static void appendNdjson(StringBuilder json, Map.Entry<String, String> entry) {
+        json.append("{\"name\":");
+        appendString(json, entry.getKey());
+        json.append(",\"value\":");
+        appendValue(json, entry.getValue());
+        json.append("}\n");
+    }
+
+    private static void appendValue(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+        } else {
+            appendString(json, value);
+        }
+    }
+
+    static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
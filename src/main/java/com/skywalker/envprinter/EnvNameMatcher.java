@@ -0,0 +1,228 @@
+package com.skywalker.envprinter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Precompiled matcher for environment variable name patterns.
+ *
+ * <p>Supported patterns are exact names ({@code TEMP}), prefixes ({@code XDG_*}, or a trailing
+ * underscore as in {@code PROCESSOR_}), suffixes ({@code *_TOKEN}), infixes ({@code *SECRET*})
+ * and general globs using {@code *} and {@code ?}. Exact names are looked up in a hash set,
+ * prefixes and suffixes in character tries, so a lookup costs O(name length) however many
+ * patterns are configured. Infixes are found with {@link String#contains}; only general globs,
+ * which are expected to be rare, go through the wildcard matcher.</p>
+ *
+ * <p>Instances are immutable and safe to share between threads.</p>
+ */
+final class EnvNameMatcher {
+
+    private static final EnvNameMatcher EMPTY = new EnvNameMatcher(Set.of(), new Trie(), new Trie(), new String[0],
+            new String[0]);
+
+    private final Set<String> exact;
+    private final Trie prefixes;
+    private final Trie reversedSuffixes;
+    private final String[] infixes;
+    private final String[] globs;
+
+    private EnvNameMatcher(Set<String> exact, Trie prefixes, Trie reversedSuffixes, String[] infixes, String[] globs) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+        this.reversedSuffixes = reversedSuffixes;
+        this.infixes = infixes;
+        this.globs = globs;
+    }
+
+    /**
+     * Compiles the given patterns. Blank patterns are ignored.
+     *
+     * @param patterns exact names, prefixes, suffixes or globs
+     * @return the compiled matcher
+     */
+    static EnvNameMatcher compile(Collection<String> patterns) {
+        if (patterns.isEmpty()) {
+            return EMPTY;
+        }
+        Set<String> exact = new HashSet<>();
+        Trie prefixes = new Trie();
+        Trie reversedSuffixes = new Trie();
+        List<String> infixes = new ArrayList<>();
+        List<String> globs = new ArrayList<>();
+        for (String raw : patterns) {
+            String pattern = raw.trim();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int firstWildcard = indexOfWildcard(pattern, 0);
+            if (firstWildcard < 0) {
+                exact.add(pattern);
+                if (pattern.endsWith("_")) {
+                    prefixes.add(pattern);
+                }
+            } else if (firstWildcard == pattern.length() - 1 && pattern.charAt(firstWildcard) == '*') {
+                prefixes.add(pattern.substring(0, firstWildcard));
+            } else if (firstWildcard == 0 && pattern.charAt(0) == '*' && indexOfWildcard(pattern, 1) < 0) {
+                reversedSuffixes.add(new StringBuilder(pattern.substring(1)).reverse().toString());
+            } else if (firstWildcard == 0 && pattern.length() > 2 && pattern.charAt(0) == '*'
+                    && indexOfWildcard(pattern, 1) == pattern.length() - 1 && pattern.charAt(pattern.length() - 1) == '*') {
+                infixes.add(pattern.substring(1, pattern.length() - 1));
+            } else {
+                globs.add(pattern);
+            }
+        }
+        return new EnvNameMatcher(exact, prefixes, reversedSuffixes, infixes.toArray(new String[0]),
+                globs.toArray(new String[0]));
+    }
+
+    /**
+     * @return true if no pattern was compiled
+     */
+    boolean isEmpty() {
+        return this == EMPTY || (exact.isEmpty() && prefixes.isEmpty() && reversedSuffixes.isEmpty()
+                && infixes.length == 0 && globs.length == 0);
+    }
+
+    /**
+     * Checks whether the name matches any of the compiled patterns.
+     *
+     * @param name the variable name
+     * @return true on a match
+     */
+    boolean matches(String name) {
+        if (exact.contains(name) || prefixes.matchesPrefixOf(name, false)
+                || reversedSuffixes.matchesPrefixOf(name, true)) {
+            return true;
+        }
+        for (String infix : infixes) {
+            if (name.contains(infix)) {
+                return true;
+            }
+        }
+        for (String glob : globs) {
+            if (globMatches(glob, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfWildcard(String pattern, int from) {
+        for (int i = from; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Iterative wildcard match with single-star backtracking, linear for patterns with one star.
+     */
+    private static boolean globMatches(String glob, String name) {
+        int g = 0;
+        int n = 0;
+        int starGlob = -1;
+        int starName = 0;
+        while (n < name.length()) {
+            if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == name.charAt(n))) {
+                g++;
+                n++;
+            } else if (g < glob.length() && glob.charAt(g) == '*') {
+                starGlob = g++;
+                starName = n;
+            } else if (starGlob >= 0) {
+                g = starGlob + 1;
+                n = ++starName;
+            } else {
+                return false;
+            }
+        }
+        while (g < glob.length() && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == glob.length();
+    }
+
+    /**
+     * Character trie that answers "does any stored key prefix the given name".
+     * Children are kept in sorted arrays and found by binary search.
+     */
+    private static final class Trie {
+
+        private final Node root = new Node();
+        private boolean empty = true;
+
+        void add(String key) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.child(key.charAt(i), true);
+            }
+            node.terminal = true;
+            empty = false;
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        /**
+         * @param reversed walk the name from its last character, to match suffixes
+         */
+        boolean matchesPrefixOf(String name, boolean reversed) {
+            if (empty) {
+                return false;
+            }
+            Node node = root;
+            int length = name.length();
+            for (int i = 0; i < length; i++) {
+                if (node.terminal) {
+                    return true;
+                }
+                node = node.child(name.charAt(reversed ? length - 1 - i : i), false);
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private boolean terminal;
+
+        Node child(char label, boolean create) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            if (!create) {
+                return null;
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+    }
+}
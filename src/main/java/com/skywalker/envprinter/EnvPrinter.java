@@ -3,32 +3,82 @@ package com.skywalker.envprinter;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.task.TaskExecutor;
 
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Component that prints environment variables at application startup.
  * Uses SLF4J for proper logging integration with Spring Boot.
+ *
+ * <p>Depending on {@code env.printer.startup-mode}, printing (and the project scan it triggers)
+ * runs during context refresh, on a background thread as soon as the bean is ready, or on a
+ * background thread once the application is ready.</p>
+ *
+ * <p>With {@code env.printer.log.format=structured} or {@code json}, the environment is logged as
+ * a single event (or a few, when it exceeds {@code env.printer.log.max-event-size}) instead of
+ * one event per variable, which keeps large environments cheap for log pipelines.</p>
  */
-public class EnvPrinter {
+public class EnvPrinter implements ApplicationListener<ApplicationReadyEvent> {
 
     private static final Logger logger = LoggerFactory.getLogger(EnvPrinter.class);
     private final EnvFilterService filterService;
     private final EnvPrinterProperties properties;
+    private final TaskExecutor executor;
 
     public EnvPrinter(EnvFilterService filterService, EnvPrinterProperties properties) {
+        this(filterService, properties, Runnable::run);
+    }
+
+    public EnvPrinter(EnvFilterService filterService, EnvPrinterProperties properties, TaskExecutor executor) {
         this.filterService = filterService;
         this.properties = properties;
+        this.executor = executor;
     }
 
+    /**
+     * Prints the environment now, or schedules it, according to the startup mode.
+     */
     @PostConstruct
+    public void start() {
+        switch (properties.getStartupMode()) {
+            case SYNC -> printEnv();
+            case ASYNC -> executor.execute(this::printEnvInBackground);
+            case DEFERRED -> logger.debug("Environment printing deferred until the application is ready");
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (properties.getStartupMode() == EnvPrinterProperties.StartupMode.DEFERRED) {
+            executor.execute(this::printEnvInBackground);
+        }
+    }
+
+    /**
+     * Logs the filtered environment in the configured {@code env.printer.log.format}.
+     */
     public void printEnv() {
+        Map<String, String> filteredEnv = filterService.getFilteredEnvironment();
+        EnvPrinterProperties.Log log = properties.getLog();
+        switch (log.getFormat()) {
+            case LINES -> printLines(filteredEnv);
+            case STRUCTURED, JSON -> printEvents(filteredEnv, log);
+        }
+    }
+
+    private void printLines(Map<String, String> filteredEnv) {
         logger.info("===============================");
         logger.info("🌍 Environment Variables");
         logger.info("===============================");
         
-        Map<String, String> filteredEnv = filterService.getFilteredEnvironment();
-        
         if (properties.isShowValues()) {
             // Show both name and value
             for (Map.Entry<String, String> entry : filteredEnv.entrySet()) {
@@ -42,7 +92,71 @@ public class EnvPrinter {
         }
         logger.info("===============================");
         logger.info("===============================");
+    }
+
+    /**
+     * Logs the environment as few events as possible, splitting it into chunks whose encoded
+     * size stays under the configured maximum.
+     */
+    private void printEvents(Map<String, String> filteredEnv, EnvPrinterProperties.Log log) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        boolean json = log.getFormat() == EnvPrinterProperties.LogFormat.JSON;
+        List<List<Map.Entry<String, String>>> chunks = chunk(filteredEnv, log.getMaxEventSize().toBytes());
+        int parts = chunks.size();
+        for (int part = 1; part <= parts; part++) {
+            List<Map.Entry<String, String>> chunk = chunks.get(part - 1);
+            if (json) {
+                logger.info("Environment variables ({} of {}, part {}/{}): {}", chunk.size(), filteredEnv.size(),
+                        part, parts, new String(EnvJsonWriter.toJson(chunk, chunk.size()), StandardCharsets.UTF_8));
+            } else {
+                LoggingEventBuilder event = logger.atInfo()
+                        .setMessage("Environment variables ({} of {}, part {}/{})")
+                        .addArgument(chunk.size())
+                        .addArgument(filteredEnv.size())
+                        .addArgument(part)
+                        .addArgument(parts);
+                for (Map.Entry<String, String> entry : chunk) {
+                    event.addKeyValue(entry.getKey(), entry.getValue());
+                }
+                event.log();
+            }
+        }
+    }
 
+    /**
+     * Splits the entries into chunks of at most {@code maxBytes} encoded bytes, estimated from the
+     * length of names and values. Values are replaced by empty strings when they are hidden.
+     */
+    private List<List<Map.Entry<String, String>>> chunk(Map<String, String> filteredEnv, long maxBytes) {
+        boolean showValues = properties.isShowValues();
+        List<List<Map.Entry<String, String>>> chunks = new ArrayList<>();
+        List<Map.Entry<String, String>> chunk = new ArrayList<>();
+        long size = 0;
+        for (Map.Entry<String, String> entry : filteredEnv.entrySet()) {
+            String value = showValues ? entry.getValue() : "";
+            // Quotes, colon and comma around each entry
+            long entrySize = entry.getKey().length() + (value != null ? value.length() : 4) + 6;
+            if (!chunk.isEmpty() && size + entrySize > maxBytes) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                size = 0;
+            }
+            chunk.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value));
+            size += entrySize;
+        }
+        if (!chunk.isEmpty() || chunks.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
 
+    private void printEnvInBackground() {
+        try {
+            printEnv();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to print environment variables: {}", e.getMessage(), e);
+        }
     }
 }
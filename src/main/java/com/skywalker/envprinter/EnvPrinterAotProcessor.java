@@ -0,0 +1,66 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Runs the project scan during Spring AOT processing and writes the detected variables to
+ * {@value EnvUsageIndex#AOT_LOCATION}, registering the resource for native images.
+ *
+ * <p>When the application runs from AOT-generated artifacts, as in a GraalVM native image,
+ * {@link EnvUsageScanner} reads that resource instead of resolving classpath wildcards, which
+ * native images do not support, so project-only filtering starts without classpath I/O. The
+ * scan uses the {@code env.printer.*} settings and application packages seen at build time.</p>
+ */
+class EnvPrinterAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvPrinterAotProcessor.class);
+
+    /**
+     * Location recorded for each name in the generated index.
+     */
+    private static final String AOT_SOURCE = "spring-aot";
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        if (beanFactory.getBeanNamesForType(EnvUsageScanner.class, false, false).length == 0) {
+            return null;
+        }
+        Environment environment = beanFactory.getBean(Environment.class);
+        EnvPrinterProperties properties = Binder.get(environment).bindOrCreate("env.printer", EnvPrinterProperties.class);
+        // The cache holds machine-local paths, which mean nothing in the generated artifacts
+        properties.getScan().setCacheEnabled(false);
+        List<String> basePackages = AutoConfigurationPackages.has(beanFactory)
+                ? AutoConfigurationPackages.get(beanFactory)
+                : List.of();
+        Set<String> usedVars = new EnvUsageScanner(properties, basePackages, beanFactory.getBeanClassLoader(),
+                EnvPrinterMetrics.NOOP, null, ApplicationRoots.findApplicationClass(beanFactory)).scanForUsedEnvVariables();
+        logger.debug("Writing {} environment variables detected at build time to {}", usedVars.size(),
+                EnvUsageIndex.AOT_LOCATION);
+
+        SortedSet<String> source = Collections.unmodifiableSortedSet(new TreeSet<>(Set.of(AOT_SOURCE)));
+        SortedMap<String, SortedSet<String>> references = new TreeMap<>();
+        for (String name : usedVars) {
+            references.put(name, source);
+        }
+        return (generationContext, beanFactoryInitializationCode) -> {
+            generationContext.getGeneratedFiles().addResourceFile(EnvUsageIndex.AOT_LOCATION,
+                    out -> EnvUsageIndex.write(references, out));
+            generationContext.getRuntimeHints().resources().registerPattern(EnvUsageIndex.AOT_LOCATION);
+        };
+    }
+}
@@ -1,47 +1,139 @@
 package com.skywalker.envprinter;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.system.JavaVersion;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Auto-configuration for the Environment Printer starter.
  * This configuration is automatically activated when the starter is on the classpath.
  * It can be disabled by setting {@code env.printer.enabled=false} in application properties.
+ * For native images, {@link EnvPrinterRuntimeHints} registers the required hints and
+ * {@link EnvPrinterAotProcessor} bakes the project scan into the AOT-generated resources.
  */
 @AutoConfiguration
 @EnableConfigurationProperties(EnvPrinterProperties.class)
 @ConditionalOnProperty(prefix = "env.printer", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ImportRuntimeHints(EnvPrinterRuntimeHints.class)
 public class EnvPrinterAutoConfiguration {
 
     /**
      * Creates the environment usage scanner that scans project files
      * to identify which environment variables are actually used.
+     * Class scanning defaults to the packages registered by {@code @SpringBootApplication}.
+     * With {@code env.printer.scan.environment-enabled}, references are resolved from the
+     * application environment and the {@code @ConfigurationProperties} beans of the bean factory.
+     * With {@code env.printer.scan.scope=application}, only the roots of the
+     * {@code @SpringBootApplication} class and other application roots are scanned.
      *
+     * @param properties the configuration properties
+     * @param beanFactory the bean factory holding the auto-configuration packages
+     * @param metrics the optional metrics
+     * @param environment the application environment
      * @return the EnvUsageScanner instance
      */
     @Bean
-    public EnvUsageScanner envUsageScanner() {
-        return new EnvUsageScanner();
+    public EnvUsageScanner envUsageScanner(EnvPrinterProperties properties, BeanFactory beanFactory,
+                                           ObjectProvider<EnvPrinterMetrics> metrics, Environment environment) {
+        List<String> basePackages = AutoConfigurationPackages.has(beanFactory)
+                ? AutoConfigurationPackages.get(beanFactory)
+                : List.of();
+        ListableBeanFactory listableBeanFactory = beanFactory instanceof ListableBeanFactory listable ? listable : null;
+        Supplier<EnvPropertyGraph> propertyGraph = environment instanceof ConfigurableEnvironment configurable
+                ? () -> EnvPropertyGraph.build(configurable, listableBeanFactory)
+                : null;
+        Class<?> applicationClass = listableBeanFactory != null
+                ? ApplicationRoots.findApplicationClass(listableBeanFactory)
+                : null;
+        return new EnvUsageScanner(properties, basePackages, null, metrics(metrics), propertyGraph, applicationClass);
     }
 
     /**
      * Creates the filter service for environment variables.
+     * Reads {@link System#getenv()} unless an {@link EnvVariableSource} bean is defined,
+     * adding the entries of config trees when {@code env.printer.include-config-trees} is set
+     * and of the files listed in {@code env.printer.dotenv-files}.
      *
      * @param properties the configuration properties
      * @param scanner the usage scanner
+     * @param variableSource the optional environment variable source
+     * @param metrics the optional metrics
+     * @param environment the application environment
      * @return the EnvFilterService instance
      */
     @Bean
-    public EnvFilterService envFilterService(EnvPrinterProperties properties, EnvUsageScanner scanner) {
-        return new EnvFilterService(properties, scanner);
+    public EnvFilterService envFilterService(EnvPrinterProperties properties, EnvUsageScanner scanner,
+                                             ObjectProvider<EnvVariableSource> variableSource,
+                                             ObjectProvider<EnvPrinterMetrics> metrics, Environment environment) {
+        EnvVariableSource source = variableSource.getIfAvailable(() -> EnvVariableSource.SYSTEM);
+        List<Path> configTrees = properties.isIncludeConfigTrees() && environment instanceof ConfigurableEnvironment configurable
+                ? FileVariableSource.findConfigTrees(configurable)
+                : List.of();
+        List<Path> dotenvFiles = properties.getDotenvFiles().stream().map(Paths::get).toList();
+        if (!configTrees.isEmpty() || !dotenvFiles.isEmpty()) {
+            source = new FileVariableSource(source, configTrees, dotenvFiles);
+        }
+        return new EnvFilterService(properties, scanner, source, metrics(metrics));
+    }
+
+    /**
+     * Creates the monitor that periodically checks for environment changes.
+     * Only created when {@code env.printer.refresh-interval} is set.
+     *
+     * @param filterService the filter service
+     * @param properties the configuration properties
+     * @return the EnvChangeMonitor instance
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "env.printer", name = "refresh-interval")
+    public EnvChangeMonitor envChangeMonitor(EnvFilterService filterService, EnvPrinterProperties properties) {
+        return new EnvChangeMonitor(filterService, properties.getRefreshInterval());
+    }
+
+    /**
+     * Creates the watcher that refreshes the view when config trees or .env files change.
+     * Only created when {@code env.printer.watch-files} is enabled.
+     *
+     * @param filterService the filter service
+     * @param properties the configuration properties
+     * @return the EnvFileWatcher instance
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "env.printer", name = "watch-files", havingValue = "true")
+    public EnvFileWatcher envFileWatcher(EnvFilterService filterService, EnvPrinterProperties properties) {
+        if (filterService.getVariableSource() instanceof FileVariableSource files) {
+            return new EnvFileWatcher(filterService, files.getConfigTrees(), files.getDotenvFiles(),
+                    properties.getWatchDebounce());
+        }
+        return new EnvFileWatcher(filterService, List.of(), List.of(), properties.getWatchDebounce());
     }
 
     /**
      * Creates the EnvPrinter bean that logs environment variables at startup.
+     * Background printing uses virtual threads when the JVM supports them.
      *
      * @param filterService the filter service
      * @param properties the configuration properties
@@ -49,21 +141,26 @@ public class EnvPrinterAutoConfiguration {
      */
     @Bean
     public EnvPrinter envPrinter(EnvFilterService filterService, EnvPrinterProperties properties) {
-        return new EnvPrinter(filterService, properties);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("env-printer-");
+        executor.setDaemon(true);
+        executor.setVirtualThreads(JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE));
+        return new EnvPrinter(filterService, properties, executor);
     }
 
     /**
      * Creates the REST controller endpoint for environment variables.
-     * Only created when endpoint is enabled and application is a web application.
+     * Only created when endpoint is enabled and application is a servlet web application.
      *
      * @param filterService the filter service
+     * @param metrics the optional metrics
      * @return the EnvPrinterController instance
      */
     @Bean
-    @ConditionalOnWebApplication
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     @ConditionalOnProperty(prefix = "env.printer", name = "endpoint-enabled", havingValue = "true", matchIfMissing = true)
-    public EnvPrinterController envPrinterController(EnvFilterService filterService) {
-        return new EnvPrinterController(filterService);
+    public EnvPrinterController envPrinterController(EnvFilterService filterService,
+                                                     ObjectProvider<EnvPrinterMetrics> metrics) {
+        return new EnvPrinterController(filterService, metrics(metrics));
     }
 
     /**
@@ -79,4 +176,83 @@ public class EnvPrinterAutoConfiguration {
     public EnvPrinterEndpoint envPrinterEndpoint(EnvFilterService filterService) {
         return new EnvPrinterEndpoint(filterService);
     }
+
+    /**
+     * Creates the web extension of the actuator endpoint, which writes pre-encoded JSON.
+     *
+     * @param filterService the filter service
+     * @param metrics the optional metrics
+     * @return the EnvPrinterWebEndpointExtension instance
+     */
+    @Bean
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension")
+    @ConditionalOnProperty(prefix = "env.printer", name = "endpoint-enabled", havingValue = "true", matchIfMissing = true)
+    public EnvPrinterWebEndpointExtension envPrinterWebEndpointExtension(EnvFilterService filterService,
+                                                                         ObjectProvider<EnvPrinterMetrics> metrics) {
+        return new EnvPrinterWebEndpointExtension(filterService, metrics(metrics));
+    }
+
+    private static EnvPrinterMetrics metrics(ObjectProvider<EnvPrinterMetrics> metrics) {
+        return metrics.getIfAvailable(() -> EnvPrinterMetrics.NOOP);
+    }
+
+    /**
+     * Serves the environment endpoint through a {@link RouterFunction} in reactive web applications.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @ConditionalOnClass(name = "org.springframework.web.reactive.function.server.RouterFunction")
+    @ConditionalOnProperty(prefix = "env.printer", name = "endpoint-enabled", havingValue = "true", matchIfMissing = true)
+    static class ReactiveEndpointConfiguration {
+
+        /**
+         * Creates the reactive handler for environment variables.
+         *
+         * @param filterService the filter service
+         * @param metrics the optional metrics
+         * @return the EnvPrinterHandler instance
+         */
+        @Bean
+        public EnvPrinterHandler envPrinterHandler(EnvFilterService filterService,
+                                                   ObjectProvider<EnvPrinterMetrics> metrics) {
+            return new EnvPrinterHandler(filterService, metrics(metrics));
+        }
+
+        /**
+         * Routes {@code /env/env-printer}, {@code /env/env-printer/stream} and {@code /env/env-printer/digest}
+         * to the handler.
+         *
+         * @param handler the reactive handler
+         * @return the router function
+         */
+        @Bean
+        public RouterFunction<ServerResponse> envPrinterRouterFunction(EnvPrinterHandler handler) {
+            return RouterFunctions.route()
+                    .GET("/env/env-printer", handler::getEnvironment)
+                    .GET("/env/env-printer/stream", handler::streamEnvironment)
+                    .GET("/env/env-printer/digest", handler::getDigest)
+                    .build();
+        }
+    }
+
+    /**
+     * Records scanner, snapshot and endpoint metrics with Micrometer when it is on the classpath.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerMetricsConfiguration {
+
+        /**
+         * Creates Micrometer-backed metrics, or no-op metrics when no {@link MeterRegistry} bean exists.
+         *
+         * @param registry the meter registry
+         * @return the EnvPrinterMetrics instance
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public EnvPrinterMetrics envPrinterMetrics(ObjectProvider<MeterRegistry> registry) {
+            MeterRegistry meterRegistry = registry.getIfUnique();
+            return meterRegistry != null ? new MicrometerEnvPrinterMetrics(meterRegistry) : EnvPrinterMetrics.NOOP;
+        }
+    }
 }
@@ -1,8 +1,16 @@
 package com.skywalker.envprinter;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 
@@ -13,18 +21,34 @@ import java.util.Map;
  * <p>Example usage:</p>
  * <pre>
  * GET /env/env-printer
+ * GET /env/env-printer?prefix=DB_
+ * GET /env/env-printer?glob=*_URL&amp;limit=100&amp;cursor=API_URL
+ * GET /env/env-printer?names=DB_URL,KAFKA_BROKERS
+ * GET /env/env-printer/stream?prefix=KAFKA_
+ * GET /env/env-printer/digest
  * </pre>
  * 
  * <p>Returns a JSON object containing filtered environment variables sorted by key.</p>
+ *
+ * <p>The response body is encoded once per snapshot and carries a strong {@code ETag}.
+ * Requests sending a matching {@code If-None-Match} header receive {@code 304 Not Modified}
+ * without a body. While a background startup scan is running, the endpoint answers
+ * {@code 503 Service Unavailable} with a {@code SCAN_PENDING} status.</p>
  */
 @RestController
 @RequestMapping("/env")
 public class EnvPrinterController {
 
     private final EnvFilterService filterService;
+    private final EnvPrinterMetrics metrics;
 
     public EnvPrinterController(EnvFilterService filterService) {
+        this(filterService, EnvPrinterMetrics.NOOP);
+    }
+
+    public EnvPrinterController(EnvFilterService filterService, EnvPrinterMetrics metrics) {
         this.filterService = filterService;
+        this.metrics = metrics;
     }
 
     /**
@@ -33,10 +57,175 @@ public class EnvPrinterController {
      * Filtering is based on the configuration properties.
      * When showValues is false, only variable names are returned (with empty string values).
      *
+     * <p>This method is kept for Java callers; HTTP requests are served by
+     * {@link #getEnvironment(String, String, String, Integer, String, WebRequest)}.</p>
+     *
      * @return a map of environment variable names to their values (or empty strings if showValues is false)
      */
-    @GetMapping("/env-printer")
     public Map<String, String> getEnvironment() {
         return filterService.getFilteredEnvironmentForEndpoint();
     }
+
+    /**
+     * Returns the filtered environment variables selected by a prefix, a pattern and a page.
+     *
+     * @see #getEnvironment(String, String, String, Integer, String, WebRequest)
+     */
+    public ResponseEntity<byte[]> getEnvironment(String prefix, String glob, Integer limit, String cursor) {
+        return getEnvironment(prefix, glob, null, limit, cursor, null);
+    }
+
+    /**
+     * Returns the filtered environment variables selected by the query parameters as a sorted JSON object.
+     * Without parameters the whole view is returned. To page through a large environment, pass
+     * {@code limit} and then the last name of each page as {@code cursor}; a page with fewer than
+     * {@code limit} entries is the last one.
+     *
+     * @param prefix only names starting with this prefix, looked up as a range of the sorted snapshot
+     * @param glob only names matching this pattern, such as {@code KAFKA_*} or {@code *_URL}
+     * @param names only these comma-separated names, such as the drifted names reported by a digest
+     * @param limit the maximum number of entries
+     * @param cursor only names sorting after this one
+     * @param webRequest the request whose {@code If-None-Match} header is checked, or {@code null} to skip the check
+     * @return the JSON of the selected entries, {@code null} after answering 304 because the client's copy is
+     *         current, or 400 for an invalid limit
+     */
+    @GetMapping("/env-printer")
+    public ResponseEntity<byte[]> getEnvironment(@RequestParam(required = false) String prefix,
+                                                 @RequestParam(required = false) String glob,
+                                                 @RequestParam(required = false) String names,
+                                                 @RequestParam(required = false) Integer limit,
+                                                 @RequestParam(required = false) String cursor,
+                                                 WebRequest webRequest) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        ResponseEntity<byte[]> unavailable = checkRequest(limit, "rest", start, event);
+        if (unavailable != null) {
+            return unavailable;
+        }
+        EnvQuery query = EnvQuery.of(prefix, glob, names, limit, cursor);
+        EnvSnapshot snapshot = filterService.getSnapshot();
+        byte[] json;
+        String etag;
+        if (query.isAll()) {
+            json = snapshot.getEndpointJson();
+            etag = snapshot.getEtag();
+        } else {
+            json = EnvJsonWriter.toJson(query.select(snapshot.getEndpointView()), limit != null ? limit : 16);
+            etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        }
+        // Checked here rather than left to Spring, so that a 304 is not recorded as a full response
+        if (webRequest != null && webRequest.checkNotModified(etag)) {
+            record("rest", "not_modified", start, event, 0);
+            return null;
+        }
+        ResponseEntity<byte[]> response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+        record("rest", "ok", start, event, json.length);
+        return response;
+    }
+
+    /**
+     * Streams the selected variables as newline-delimited JSON, one {@code {"name":...,"value":...}}
+     * object per line. Entries are written straight from the sorted snapshot without building a
+     * response map, so the memory used does not depend on the size of the environment.
+     *
+     * @param prefix only names starting with this prefix
+     * @param glob only names matching this pattern
+     * @param names only these comma-separated names
+     * @param limit the maximum number of entries
+     * @param cursor only names sorting after this one
+     * @return the streaming response, or 400 for an invalid limit
+     */
+    @GetMapping(value = "/env-printer/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEnvironment(@RequestParam(required = false) String prefix,
+                                                                   @RequestParam(required = false) String glob,
+                                                                   @RequestParam(required = false) String names,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) String cursor,
+                                                 WebRequest webRequest) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        ResponseEntity<byte[]> unavailable = checkRequest(limit, "rest_stream", start, event);
+        if (unavailable != null) {
+            byte[] error = unavailable.getBody();
+            return ResponseEntity.status(unavailable.getStatusCode())
+                    .headers(unavailable.getHeaders())
+                    .body(out -> out.write(error));
+        }
+        Iterable<Map.Entry<String, String>> entries = EnvQuery.of(prefix, glob, names, limit, cursor)
+                .select(filterService.getSnapshot().getEndpointView());
+        StreamingResponseBody body = out -> {
+            EnvJsonWriter.writeNdjson(entries, out);
+            record("rest_stream", "ok", start, event, -1);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Returns the digest of the endpoint view: the snapshot version, its hash and a hash per name.
+     * Aggregators compare the digests of several instances and then fetch only the names that
+     * differ with the {@code names} parameter. See {@link EnvDriftAggregator}.
+     *
+     * @param webRequest the request whose {@code If-None-Match} header is checked, or {@code null} to skip the check
+     * @return the digest JSON, {@code null} after answering 304 because the client's copy is current,
+     *         or 503 while the startup scan is pending
+     */
+    @GetMapping("/env-printer/digest")
+    public ResponseEntity<byte[]> getDigest(WebRequest webRequest) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        ResponseEntity<byte[]> unavailable = checkRequest(null, "rest_digest", start, event);
+        if (unavailable != null) {
+            return unavailable;
+        }
+        EnvDigest digest = filterService.getSnapshot().getDigest();
+        String etag = "\"" + digest.getHash() + "-digest\"";
+        if (webRequest != null && webRequest.checkNotModified(etag)) {
+            record("rest_digest", "not_modified", start, event, 0);
+            return null;
+        }
+        byte[] json = digest.toJson();
+        ResponseEntity<byte[]> response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+        record("rest_digest", "ok", start, event, json.length);
+        return response;
+    }
+
+    /**
+     * Answers requests that cannot be served: 503 while the startup scan is running, 400 for invalid parameters.
+     *
+     * @return the error response, or {@code null} if the request can be served
+     */
+    private ResponseEntity<byte[]> checkRequest(Integer limit, String endpoint, long start,
+                                                EnvPrinterEvents.EndpointRequest event) {
+        if (filterService.isScanPending()) {
+            record(endpoint, "scan_pending", start, event, EnvJsonWriter.SCAN_PENDING.length);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(EnvJsonWriter.SCAN_PENDING);
+        }
+        if (limit != null && limit < 1) {
+            record(endpoint, "invalid_query", start, event, EnvJsonWriter.INVALID_QUERY.length);
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(EnvJsonWriter.INVALID_QUERY);
+        }
+        return null;
+    }
+
+    /**
+     * Records a served request in the metrics and, when recording, as a flight recorder event.
+     */
+    private void record(String endpoint, String outcome, long start, EnvPrinterEvents.EndpointRequest event, long bytes) {
+        metrics.recordEndpointRequest(endpoint, outcome, System.nanoTime() - start);
+        EnvPrinterEvents.endEndpointRequest(event, endpoint, outcome, bytes);
+    }
 }
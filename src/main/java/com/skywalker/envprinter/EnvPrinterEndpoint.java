@@ -1,8 +1,12 @@
 package com.skywalker.envprinter;
 
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -12,6 +16,9 @@ import java.util.Map;
  * <p>Example usage:</p>
  * <pre>
  * GET /actuator/envprinter
+ * GET /actuator/envprinter?prefix=DB_&amp;limit=50
+ * GET /actuator/envprinter?names=DB_URL,KAFKA_BROKERS
+ * GET /actuator/envprinter/digest
  * </pre>
  * 
  * <p>Returns a JSON object containing filtered environment variables sorted by key.</p>
@@ -19,6 +26,11 @@ import java.util.Map;
 @Endpoint(id = "envprinter")
 public class EnvPrinterEndpoint {
 
+    /**
+     * Selector of the digest operation.
+     */
+    static final String DIGEST = "digest";
+
     private final EnvFilterService filterService;
 
     public EnvPrinterEndpoint(EnvFilterService filterService) {
@@ -33,8 +45,67 @@ public class EnvPrinterEndpoint {
      *
      * @return a map of environment variable names to their values (or empty strings if showValues is false)
      */
-    @ReadOperation
     public Map<String, String> getEnvironment() {
-        return filterService.getFilteredEnvironmentForEndpoint();
+        return getEnvironment(null, null, null, null, null);
+    }
+
+    /**
+     * Returns the filtered environment variables selected by a prefix, a pattern and a page.
+     *
+     * @see #getEnvironment(String, String, String, Integer, String)
+     */
+    public Map<String, String> getEnvironment(@Nullable String prefix, @Nullable String glob,
+                                              @Nullable Integer limit, @Nullable String cursor) {
+        return getEnvironment(prefix, glob, null, limit, cursor);
+    }
+
+    /**
+     * Returns the filtered environment variables selected by the query parameters as a sorted map.
+     * Without parameters the whole view is returned.
+     *
+     * @param prefix only names starting with this prefix, looked up as a range of the sorted snapshot
+     * @param glob only names matching this pattern, such as {@code KAFKA_*} or {@code *_URL}
+     * @param names only these comma-separated names
+     * @param limit the maximum number of entries
+     * @param cursor only names sorting after this one, usually the last name of the previous page
+     * @return a map of environment variable names to their values (or empty strings if showValues is false)
+     */
+    @ReadOperation
+    public Map<String, String> getEnvironment(@Nullable String prefix, @Nullable String glob, @Nullable String names,
+                                              @Nullable Integer limit, @Nullable String cursor) {
+        EnvQuery query;
+        try {
+            query = EnvQuery.of(prefix, glob, names, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        if (query.isAll()) {
+            return filterService.getFilteredEnvironmentForEndpoint();
+        }
+        Map<String, String> selected = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : query.select(filterService.getSnapshot().getEndpointView())) {
+            selected.put(entry.getKey(), entry.getValue());
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the digest of the endpoint view at {@code /actuator/envprinter/digest}: the snapshot
+     * version, its hash and a hash per name.
+     *
+     * @param part the part of the endpoint, only {@code digest} exists
+     * @return the digest as a map, or {@code null} for any other part, which answers 404
+     */
+    @ReadOperation
+    public Map<String, Object> getPart(@Selector String part) {
+        if (!DIGEST.equals(part)) {
+            return null;
+        }
+        EnvDigest digest = filterService.getSnapshot().getDigest();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("version", digest.getVersion());
+        result.put("hash", digest.getHash());
+        result.put("keys", digest.getKeys());
+        return result;
     }
 }
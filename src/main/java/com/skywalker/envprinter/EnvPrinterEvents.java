@@ -0,0 +1,210 @@
+package com.skywalker.envprinter;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Java Flight Recorder events for resource scans, snapshot rebuilds and endpoint requests.
+ *
+ * <p>The events are disabled by default and enabled by the settings file shipped at
+ * {@value #SETTINGS_LOCATION}, so they cost a branch and an allocation the JIT usually removes
+ * unless a recording asks for them. Each {@code begin} method returns {@code null} when the event
+ * is disabled or the runtime has no {@code jdk.jfr} module; the matching {@code end} method
+ * ignores {@code null} events, so callers never reference JFR types when it is absent.</p>
+ */
+final class EnvPrinterEvents {
+
+    /**
+     * Classpath location of the JFR settings file that enables the events.
+     */
+    static final String SETTINGS_LOCATION = "META-INF/env-printer/env-printer.jfc";
+
+    private static final boolean AVAILABLE = ClassUtils.isPresent("jdk.jfr.Event", EnvPrinterEvents.class.getClassLoader());
+
+    private EnvPrinterEvents() {
+    }
+
+    /**
+     * Starts timing the scan of one configuration file, index or jar.
+     *
+     * @return the event, or {@code null} if it is not recorded
+     */
+    static ResourceScan beginResourceScan() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        ResourceScan event = new ResourceScan();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a resource scan started by {@link #beginResourceScan()}.
+     *
+     * @param event the event, or {@code null}
+     * @param kind the kind of resource, such as {@code properties}, {@code yml} or {@code classes}
+     * @param location the URL of the resource
+     * @param bytes the number of bytes read
+     * @param variables the number of variable names found
+     */
+    static void endResourceScan(ResourceScan event, String kind, String location, long bytes, int variables) {
+        if (event != null && event.shouldCommit()) {
+            event.kind = kind;
+            event.location = location;
+            event.bytes = bytes;
+            event.variables = variables;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing the filtering of the environment into a snapshot.
+     *
+     * @return the event, or {@code null} if it is not recorded
+     */
+    static SnapshotRebuild beginSnapshotRebuild() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        SnapshotRebuild event = new SnapshotRebuild();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a filtering started by {@link #beginSnapshotRebuild()}.
+     *
+     * @param event the event, or {@code null}
+     * @param version the version of the resulting snapshot
+     * @param projectOnly whether only project variables were kept
+     * @param inputSize the number of environment variables filtered
+     * @param outputSize the number of variables in the snapshot
+     * @param rebuilt whether a new snapshot was built, rather than the previous one kept for unchanged content
+     */
+    static void endSnapshotRebuild(SnapshotRebuild event, long version, boolean projectOnly, int inputSize,
+                                   int outputSize, boolean rebuilt) {
+        if (event != null && event.shouldCommit()) {
+            event.version = version;
+            event.projectOnly = projectOnly;
+            event.inputSize = inputSize;
+            event.outputSize = outputSize;
+            event.rebuilt = rebuilt;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing an endpoint request.
+     *
+     * @return the event, or {@code null} if it is not recorded
+     */
+    static EndpointRequest beginEndpointRequest() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        EndpointRequest event = new EndpointRequest();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a request started by {@link #beginEndpointRequest()}.
+     *
+     * @param event the event, or {@code null}
+     * @param endpoint the endpoint, with the names used by {@link EnvPrinterMetrics#recordEndpointRequest}
+     * @param outcome the outcome, such as {@code ok} or {@code scan_pending}
+     * @param bytes the size of the response body, or -1 if it is streamed
+     */
+    static void endEndpointRequest(EndpointRequest event, String endpoint, String outcome, long bytes) {
+        if (event != null && event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.outcome = outcome;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Name("com.skywalker.envprinter.ResourceScan")
+    @Label("Env Printer Resource Scan")
+    @Category({"Spring Boot", "Env Printer"})
+    @Description("Scan of one configuration file, index or jar for environment variable references")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ResourceScan extends Event {
+
+        @Label("Kind")
+        String kind;
+
+        @Label("Location")
+        String location;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+
+        @Label("Variables Found")
+        int variables;
+    }
+
+    @Name("com.skywalker.envprinter.SnapshotRebuild")
+    @Label("Env Printer Snapshot Rebuild")
+    @Category({"Spring Boot", "Env Printer"})
+    @Description("Filtering of the environment into a new snapshot")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class SnapshotRebuild extends Event {
+
+        @Label("Version")
+        long version;
+
+        @Label("Project Only")
+        boolean projectOnly;
+
+        @Label("Input Size")
+        @Description("Environment variables filtered")
+        int inputSize;
+
+        @Label("Output Size")
+        @Description("Variables in the snapshot")
+        int outputSize;
+
+        @Label("Rebuilt")
+        @Description("False if the content was unchanged and the previous snapshot was kept")
+        boolean rebuilt;
+    }
+
+    @Name("com.skywalker.envprinter.EndpointRequest")
+    @Label("Env Printer Endpoint Request")
+    @Category({"Spring Boot", "Env Printer"})
+    @Description("Request served by an env printer endpoint")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class EndpointRequest extends Event {
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Outcome")
+        String outcome;
+
+        @Label("Response Size")
+        @DataAmount
+        long bytes;
+    }
+}
@@ -0,0 +1,214 @@
+package com.skywalker.envprinter;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive counterpart of {@link EnvPrinterController} for WebFlux applications, routed by a
+ * {@code RouterFunction} at {@code /env/env-printer}, {@code /env/env-printer/stream} and
+ * {@code /env/env-printer/digest}. Accepts the same {@code prefix}, {@code glob}, {@code names},
+ * {@code limit} and {@code cursor} parameters.
+ *
+ * <p>A current snapshot whose JSON (and digest, for the digest route) is already encoded is
+ * served directly on the calling thread, which only reads immutable data. When the snapshot has
+ * to be rebuilt or encoded, which may scan the project or wait for a rebuild on another thread,
+ * the work moves to the bounded elastic scheduler so it never stalls an event loop thread. So does
+ * any work proportional to the size of the environment: selecting, encoding and hashing a query,
+ * and iterating the entries of a stream.</p>
+ */
+public class EnvPrinterHandler {
+
+    private static final int NDJSON_BATCH = 256;
+
+    private final EnvFilterService filterService;
+    private final EnvPrinterMetrics metrics;
+
+    public EnvPrinterHandler(EnvFilterService filterService) {
+        this(filterService, EnvPrinterMetrics.NOOP);
+    }
+
+    public EnvPrinterHandler(EnvFilterService filterService, EnvPrinterMetrics metrics) {
+        this.filterService = filterService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the selected variables as a sorted JSON object with a strong {@code ETag}, or
+     * {@code 304 Not Modified} when it matches {@code If-None-Match}.
+     *
+     * @param request the request
+     * @return the response
+     */
+    public Mono<ServerResponse> getEnvironment(ServerRequest request) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        EnvQuery query;
+        try {
+            query = query(request);
+        } catch (IllegalArgumentException e) {
+            return invalidQuery("rest", start, event);
+        }
+        if (filterService.isScanPending()) {
+            return scanPending("rest", start, event);
+        }
+        return snapshot(false).flatMap(snapshot -> {
+            if (query.isAll()) {
+                return respond(request, "rest", snapshot.getEndpointJson(), snapshot.getEtag(), start, event);
+            }
+            return Mono.fromCallable(() -> EnvJsonWriter.toJson(query.select(snapshot.getEndpointView()), 16))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(json -> respond(request, "rest", json,
+                            "\"" + DigestUtils.md5DigestAsHex(json) + "\"", start, event));
+        });
+    }
+
+    /**
+     * Streams the selected variables as newline-delimited JSON, encoded in batches straight
+     * from the sorted snapshot.
+     *
+     * @param request the request
+     * @return the streaming response
+     */
+    public Mono<ServerResponse> streamEnvironment(ServerRequest request) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        EnvQuery query;
+        try {
+            query = query(request);
+        } catch (IllegalArgumentException e) {
+            return invalidQuery("rest_stream", start, event);
+        }
+        if (filterService.isScanPending()) {
+            return scanPending("rest_stream", start, event);
+        }
+        return snapshot(false).flatMap(snapshot -> {
+            Flux<Map.Entry<String, String>> entries =
+                    Flux.defer(() -> Flux.fromIterable(query.select(snapshot.getEndpointView())));
+            Flux<DataBuffer> body = entries
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .buffer(NDJSON_BATCH)
+                    .map(EnvPrinterHandler::encodeNdjson)
+                    .doOnComplete(() -> record("rest_stream", "ok", start, event, -1));
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(BodyInserters.fromDataBuffers(body));
+        });
+    }
+
+    /**
+     * Returns the digest of the endpoint view with a strong {@code ETag}, or
+     * {@code 304 Not Modified} when it matches {@code If-None-Match}.
+     *
+     * @param request the request
+     * @return the response
+     */
+    public Mono<ServerResponse> getDigest(ServerRequest request) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        if (filterService.isScanPending()) {
+            return scanPending("rest_digest", start, event);
+        }
+        return snapshot(true).flatMap(snapshot -> {
+            EnvDigest digest = snapshot.getDigest();
+            return respond(request, "rest_digest", digest.toJson(), "\"" + digest.getHash() + "-digest\"", start,
+                    event);
+        });
+    }
+
+    /**
+     * Answers with the JSON and its {@code ETag}, or {@code 304 Not Modified} when it matches {@code If-None-Match}.
+     */
+    private Mono<ServerResponse> respond(ServerRequest request, String endpoint, byte[] json, String etag, long start,
+                                         EnvPrinterEvents.EndpointRequest event) {
+        return request.checkNotModified(etag)
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                        .eTag(etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(json)))
+                .doOnNext(response -> record(endpoint, response, start, event, json.length));
+    }
+
+    /**
+     * Serves the current snapshot on the calling thread if it is already encoded, or builds and
+     * encodes it on the bounded elastic scheduler.
+     */
+    private Mono<EnvSnapshot> snapshot(boolean withDigest) {
+        EnvSnapshot current = filterService.getSnapshotIfCurrent();
+        if (current != null && current.isPrepared(withDigest)) {
+            return Mono.just(current);
+        }
+        return Mono.fromCallable(() -> {
+            EnvSnapshot snapshot = filterService.getSnapshot();
+            // Encode here as well, rather than on the event loop
+            snapshot.getEndpointJson();
+            if (withDigest) {
+                snapshot.getDigest();
+            }
+            return snapshot;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static EnvQuery query(ServerRequest request) {
+        String limit = request.queryParam("limit").orElse(null);
+        return EnvQuery.of(request.queryParam("prefix").orElse(null), request.queryParam("glob").orElse(null),
+                request.queryParam("names").orElse(null), limit != null ? Integer.valueOf(limit) : null,
+                request.queryParam("cursor").orElse(null));
+    }
+
+    private static DataBuffer encodeNdjson(List<Map.Entry<String, String>> entries) {
+        StringBuilder lines = new StringBuilder(entries.size() * 64);
+        for (Map.Entry<String, String> entry : entries) {
+            EnvJsonWriter.appendNdjson(lines, entry);
+        }
+        return DefaultDataBufferFactory.sharedInstance.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mono<ServerResponse> scanPending(String endpoint, long start, EnvPrinterEvents.EndpointRequest event) {
+        record(endpoint, "scan_pending", start, event, EnvJsonWriter.SCAN_PENDING.length);
+        return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnvJsonWriter.SCAN_PENDING);
+    }
+
+    private Mono<ServerResponse> invalidQuery(String endpoint, long start, EnvPrinterEvents.EndpointRequest event) {
+        record(endpoint, "invalid_query", start, event, EnvJsonWriter.INVALID_QUERY.length);
+        return ServerResponse.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnvJsonWriter.INVALID_QUERY);
+    }
+
+    /**
+     * Records a request answered with {@code 200 OK} or {@code 304 Not Modified}.
+     */
+    private void record(String endpoint, ServerResponse response, long start, EnvPrinterEvents.EndpointRequest event,
+                        long bytes) {
+        if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+            record(endpoint, "not_modified", start, event, 0);
+        } else {
+            record(endpoint, "ok", start, event, bytes);
+        }
+    }
+
+    /**
+     * Records a served request in the metrics and, when recording, as a flight recorder event.
+     */
+    private void record(String endpoint, String outcome, long start, EnvPrinterEvents.EndpointRequest event, long bytes) {
+        metrics.recordEndpointRequest(endpoint, outcome, System.nanoTime() - start);
+        EnvPrinterEvents.endEndpointRequest(event, endpoint, outcome, bytes);
+    }
+}
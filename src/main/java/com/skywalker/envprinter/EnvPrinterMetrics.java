@@ -0,0 +1,61 @@
+package com.skywalker.envprinter;
+
+/**
+ * Receives measurements from the scanner, the filter service and the endpoints.
+ * When Micrometer is on the classpath and a {@code MeterRegistry} bean exists, the auto-configuration
+ * records them as meters; declare a bean of this type to send them elsewhere.
+ * All methods default to doing nothing.
+ */
+public interface EnvPrinterMetrics {
+
+    /**
+     * Metrics that discard every measurement.
+     */
+    EnvPrinterMetrics NOOP = new EnvPrinterMetrics() {
+    };
+
+    /**
+     * Records one phase of a project scan.
+     *
+     * @param phase the phase, e.g. {@code properties}, {@code yml}, {@code classes} or {@code index}
+     * @param location the location pattern or packages scanned in the phase
+     * @param nanos the time spent in the phase
+     * @param resources the number of resources read
+     * @param bytes the number of bytes read
+     */
+    default void recordScanPhase(String phase, String location, long nanos, long resources, long bytes) {
+    }
+
+    /**
+     * Records the number of variables detected by the last scan.
+     *
+     * @param count the number of detected variables
+     */
+    default void recordDetectedVariables(int count) {
+    }
+
+    /**
+     * Records a lookup in one of the caches.
+     *
+     * @param cache {@code scan} for the on-disk scan cache, {@code snapshot} for the environment snapshot
+     * @param hit whether the cached value was reused
+     */
+    default void recordCacheLookup(String cache, boolean hit) {
+    }
+
+    /**
+     * Records a rebuild of the environment snapshot.
+     */
+    default void recordSnapshotRebuild() {
+    }
+
+    /**
+     * Records an endpoint request.
+     *
+     * @param endpoint {@code rest} or {@code actuator}
+     * @param outcome {@code ok}, {@code not_modified}, {@code scan_pending} or {@code invalid_query}
+     * @param nanos the time spent handling the request
+     */
+    default void recordEndpointRequest(String endpoint, String outcome, long nanos) {
+    }
+}
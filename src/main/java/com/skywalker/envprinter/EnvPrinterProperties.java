@@ -1,6 +1,11 @@
 package com.skywalker.envprinter;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration properties for the Environment Printer starter.
@@ -37,6 +42,70 @@ public class EnvPrinterProperties {
      */
     private boolean showValues = false;
 
+    /**
+     * When to print the environment at startup. SYNC prints during context refresh,
+     * ASYNC prints on a background thread right away, DEFERRED prints on a background
+     * thread once the application is ready. Until the project scan completes in the
+     * background modes, the endpoints answer 503 with a "scan pending" status.
+     */
+    private StartupMode startupMode = StartupMode.SYNC;
+
+    /**
+     * Also show the entries of config trees imported with spring.config.import=configtree:...,
+     * such as mounted Kubernetes secrets and config maps. Environment variables take precedence.
+     */
+    private boolean includeConfigTrees = false;
+
+    /**
+     * Paths of .env files whose KEY=VALUE entries are also shown. Environment variables and
+     * config tree entries take precedence.
+     */
+    private List<String> dotenvFiles = new ArrayList<>();
+
+    /**
+     * Watch config trees and .env files for changes and refresh the view when they change.
+     */
+    private boolean watchFiles = false;
+
+    /**
+     * Quiet period after a file event before the view is refreshed, so that a burst of events
+     * such as a ConfigMap symlink swap triggers a single re-read.
+     */
+    private Duration watchDebounce = Duration.ofMillis(500);
+
+    /**
+     * Interval of the background check for environment changes. Changes are logged as a diff
+     * and published as an EnvChangedEvent. Disabled when not set.
+     */
+    private Duration refreshInterval;
+
+    /**
+     * Patterns of environment variables to show. When set, only matching variables are displayed.
+     * Supports exact names, prefixes (DB_*), suffixes (*_URL) and globs (KAFKA_*_HOST).
+     */
+    private List<String> include = new ArrayList<>();
+
+    /**
+     * Patterns of environment variables to hide, in addition to the built-in OS exclusions.
+     * Supports exact names, prefixes (KUBERNETES_*), suffixes (*_PASSWORD) and globs.
+     */
+    private List<String> exclude = new ArrayList<>();
+
+    /**
+     * Settings for the project usage scan performed in project-only mode.
+     */
+    private final Scan scan = new Scan();
+
+    /**
+     * Settings for the environment printed at startup.
+     */
+    private final Log log = new Log();
+
+    /**
+     * Settings for masking secret values in logs and endpoint responses.
+     */
+    private final Mask mask = new Mask();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -68,4 +137,433 @@ public class EnvPrinterProperties {
     public void setShowValues(boolean showValues) {
         this.showValues = showValues;
     }
-}
\ No newline at end of file
+
+    public StartupMode getStartupMode() {
+        return startupMode;
+    }
+
+    public void setStartupMode(StartupMode startupMode) {
+        this.startupMode = startupMode;
+    }
+
+    public boolean isIncludeConfigTrees() {
+        return includeConfigTrees;
+    }
+
+    public void setIncludeConfigTrees(boolean includeConfigTrees) {
+        this.includeConfigTrees = includeConfigTrees;
+    }
+
+    public List<String> getDotenvFiles() {
+        return dotenvFiles;
+    }
+
+    public void setDotenvFiles(List<String> dotenvFiles) {
+        this.dotenvFiles = dotenvFiles;
+    }
+
+    public boolean isWatchFiles() {
+        return watchFiles;
+    }
+
+    public void setWatchFiles(boolean watchFiles) {
+        this.watchFiles = watchFiles;
+    }
+
+    public Duration getWatchDebounce() {
+        return watchDebounce;
+    }
+
+    public void setWatchDebounce(Duration watchDebounce) {
+        this.watchDebounce = watchDebounce;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public List<String> getInclude() {
+        return include;
+    }
+
+    public void setInclude(List<String> include) {
+        this.include = include;
+    }
+
+    public List<String> getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(List<String> exclude) {
+        this.exclude = exclude;
+    }
+
+    public Scan getScan() {
+        return scan;
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    public Mask getMask() {
+        return mask;
+    }
+
+    /**
+     * When the environment is printed at startup.
+     */
+    public enum StartupMode {
+
+        /**
+         * Print during context refresh, on the main thread.
+         */
+        SYNC,
+
+        /**
+         * Print on a background thread as soon as the printer bean is initialized.
+         */
+        ASYNC,
+
+        /**
+         * Print on a background thread after the application is ready.
+         */
+        DEFERRED
+    }
+
+    /**
+     * Settings for the project usage scan.
+     */
+    public static class Scan {
+
+        /**
+         * Use the build-time index (META-INF/env-printer/index) generated by the
+         * annotation processor when it is present, instead of scanning the classpath.
+         */
+        private boolean indexEnabled = true;
+
+        /**
+         * Scan compiled classes for System.getenv("VAR") calls and @Value("${VAR}") annotations.
+         */
+        private boolean classesEnabled = true;
+
+        /**
+         * Resolve environment variable references from the property sources of the live environment,
+         * following placeholders, relaxed binding and @ConfigurationProperties prefixes, instead of
+         * scanning configuration files.
+         */
+        private boolean environmentEnabled = false;
+
+        /**
+         * Which classpath roots are scanned: every root, or only the application's own classes
+         * and configuration files.
+         */
+        private ScanScope scope = ScanScope.CLASSPATH;
+
+        /**
+         * File name patterns of jars scanned in addition to the application roots when the scope
+         * is APPLICATION, such as "shared-config-*.jar".
+         */
+        private List<String> includeJars = new ArrayList<>();
+
+        /**
+         * Package prefixes whose classes are scanned. Defaults to the packages
+         * of the @SpringBootApplication class.
+         */
+        private List<String> packages = new ArrayList<>();
+
+        /**
+         * Number of threads used for scanning configuration files and classes. Zero uses one
+         * thread per available processor.
+         */
+        private int parallelism = 0;
+
+        /**
+         * Read configuration files on virtual threads when the runtime supports them (Java 21+).
+         * The number of concurrent reads is still bounded by the parallelism.
+         */
+        private boolean virtualThreads = false;
+
+        /**
+         * Persist scan results to a local cache file and reuse them on restart while the
+         * classpath is unchanged. Only changed jars and configuration files are rescanned.
+         */
+        private boolean cacheEnabled = false;
+
+        /**
+         * Directory holding the scan cache. Defaults to ".cache/env-printer" under user.home.
+         */
+        private String cacheDirectory;
+
+        public boolean isIndexEnabled() {
+            return indexEnabled;
+        }
+
+        public void setIndexEnabled(boolean indexEnabled) {
+            this.indexEnabled = indexEnabled;
+        }
+
+        public boolean isEnvironmentEnabled() {
+            return environmentEnabled;
+        }
+
+        public void setEnvironmentEnabled(boolean environmentEnabled) {
+            this.environmentEnabled = environmentEnabled;
+        }
+
+        public ScanScope getScope() {
+            return scope;
+        }
+
+        public void setScope(ScanScope scope) {
+            this.scope = scope;
+        }
+
+        public List<String> getIncludeJars() {
+            return includeJars;
+        }
+
+        public void setIncludeJars(List<String> includeJars) {
+            this.includeJars = includeJars;
+        }
+
+        public boolean isClassesEnabled() {
+            return classesEnabled;
+        }
+
+        public void setClassesEnabled(boolean classesEnabled) {
+            this.classesEnabled = classesEnabled;
+        }
+
+        public List<String> getPackages() {
+            return packages;
+        }
+
+        public void setPackages(List<String> packages) {
+            this.packages = packages;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+
+        public boolean isCacheEnabled() {
+            return cacheEnabled;
+        }
+
+        public void setCacheEnabled(boolean cacheEnabled) {
+            this.cacheEnabled = cacheEnabled;
+        }
+
+        public String getCacheDirectory() {
+            return cacheDirectory;
+        }
+
+        public void setCacheDirectory(String cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+        }
+    }
+
+    /**
+     * Settings for the environment printed at startup.
+     */
+    public static class Log {
+
+        /**
+         * How the environment is logged. LINES logs one event per variable, STRUCTURED logs one
+         * event with the variables attached as key-value pairs, JSON logs one event whose message
+         * is a compact JSON object.
+         */
+        private LogFormat format = LogFormat.LINES;
+
+        /**
+         * Maximum size of a STRUCTURED or JSON event. Larger environments are split into
+         * several events, each holding at least one variable.
+         */
+        private DataSize maxEventSize = DataSize.ofKilobytes(16);
+
+        public LogFormat getFormat() {
+            return format;
+        }
+
+        public void setFormat(LogFormat format) {
+            this.format = format;
+        }
+
+        public DataSize getMaxEventSize() {
+            return maxEventSize;
+        }
+
+        public void setMaxEventSize(DataSize maxEventSize) {
+            this.maxEventSize = maxEventSize;
+        }
+    }
+
+    /**
+     * Settings for masking secret values when values are shown.
+     */
+    public static class Mask {
+
+        /**
+         * Replace secret values with the replacement in logs and endpoint responses.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Name patterns of variables whose values are always masked, with the syntax of
+         * env.printer.include. Names are also matched in upper case with dots and dashes
+         * replaced by underscores.
+         */
+        private List<String> keys = new ArrayList<>(List.of("*PASSWORD*", "*PASSWD*", "*_PWD", "*SECRET*",
+                "*TOKEN*", "*_KEY", "*APIKEY*", "*CREDENTIAL*", "*PRIVATE_KEY*"));
+
+        /**
+         * Mask values that contain a JSON Web Token.
+         */
+        private boolean detectJwt = true;
+
+        /**
+         * Mask values that contain a PEM block, such as a private key or certificate.
+         */
+        private boolean detectPem = true;
+
+        /**
+         * Mask long, random-looking base64 values with mixed case letters and digits, such as
+         * API keys. Single-case values, such as pod names, git SHAs and UUIDs, are left visible.
+         */
+        private boolean detectHighEntropy = true;
+
+        /**
+         * Minimum length of a value checked for high entropy.
+         */
+        private int minSecretLength = 20;
+
+        /**
+         * Shannon entropy, in bits per character, from which a base64 value is masked.
+         */
+        private double entropyThreshold = 4.5;
+
+        /**
+         * Text that replaces masked values.
+         */
+        private String replacement = "******";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public void setKeys(List<String> keys) {
+            this.keys = keys;
+        }
+
+        public boolean isDetectJwt() {
+            return detectJwt;
+        }
+
+        public void setDetectJwt(boolean detectJwt) {
+            this.detectJwt = detectJwt;
+        }
+
+        public boolean isDetectPem() {
+            return detectPem;
+        }
+
+        public void setDetectPem(boolean detectPem) {
+            this.detectPem = detectPem;
+        }
+
+        public boolean isDetectHighEntropy() {
+            return detectHighEntropy;
+        }
+
+        public void setDetectHighEntropy(boolean detectHighEntropy) {
+            this.detectHighEntropy = detectHighEntropy;
+        }
+
+        public int getMinSecretLength() {
+            return minSecretLength;
+        }
+
+        public void setMinSecretLength(int minSecretLength) {
+            this.minSecretLength = minSecretLength;
+        }
+
+        public double getEntropyThreshold() {
+            return entropyThreshold;
+        }
+
+        public void setEntropyThreshold(double entropyThreshold) {
+            this.entropyThreshold = entropyThreshold;
+        }
+
+        public String getReplacement() {
+            return replacement;
+        }
+
+        public void setReplacement(String replacement) {
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * Which classpath roots the project scan covers.
+     */
+    public enum ScanScope {
+
+        /**
+         * Every jar and directory on the classpath.
+         */
+        CLASSPATH,
+
+        /**
+         * The application's own roots: classpath directories, BOOT-INF/classes of an executable
+         * jar and the code source of the main class, plus jars matching the include patterns.
+         */
+        APPLICATION
+    }
+
+    /**
+     * How the environment is logged at startup.
+     */
+    public enum LogFormat {
+
+        /**
+         * One log event per variable, between banner lines.
+         */
+        LINES,
+
+        /**
+         * One log event with the variables attached as key-value pairs, for structured log appenders.
+         */
+        STRUCTURED,
+
+        /**
+         * One log event whose message is a compact JSON object of the variables.
+         */
+        JSON
+    }
+}
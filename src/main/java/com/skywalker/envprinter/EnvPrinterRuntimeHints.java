@@ -0,0 +1,28 @@
+package com.skywalker.envprinter;
+
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Native image hints for the starter: the usage indexes read from the classpath, and the
+ * virtual thread builder that {@link EnvUsageScanner} looks up reflectively.
+ */
+class EnvPrinterRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources()
+                .registerPattern(EnvUsageIndex.LOCATION)
+                .registerPattern(EnvUsageIndex.AOT_LOCATION);
+        hints.reflection()
+                .registerType(Thread.class, type -> type.withMethod("ofVirtual", List.of(), ExecutableMode.INVOKE))
+                .registerType(TypeReference.of("java.lang.Thread$Builder"), type -> type
+                        .withMethod("name", List.of(TypeReference.of(String.class), TypeReference.of(long.class)),
+                                ExecutableMode.INVOKE)
+                        .withMethod("factory", List.of(), ExecutableMode.INVOKE));
+    }
+}
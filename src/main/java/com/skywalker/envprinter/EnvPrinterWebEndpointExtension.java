@@ -0,0 +1,119 @@
+package com.skywalker.envprinter;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Web extension of {@link EnvPrinterEndpoint} that writes the snapshot's pre-encoded JSON
+ * instead of serializing the map on every request. Non-web exposures such as JMX keep
+ * using the endpoint's map.
+ */
+@EndpointWebExtension(endpoint = EnvPrinterEndpoint.class)
+public class EnvPrinterWebEndpointExtension {
+
+    private final EnvFilterService filterService;
+    private final EnvPrinterMetrics metrics;
+
+    public EnvPrinterWebEndpointExtension(EnvFilterService filterService) {
+        this(filterService, EnvPrinterMetrics.NOOP);
+    }
+
+    public EnvPrinterWebEndpointExtension(EnvFilterService filterService, EnvPrinterMetrics metrics) {
+        this.filterService = filterService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the filtered environment variables as pre-encoded JSON.
+     *
+     * @return the JSON bytes of the current snapshot, or a 503 response while the startup scan is pending
+     */
+    public WebEndpointResponse<byte[]> getEnvironment() {
+        return getEnvironment(null, null, null, null, null);
+    }
+
+    /**
+     * Returns the filtered environment variables selected by a prefix, a pattern and a page.
+     *
+     * @see #getEnvironment(String, String, String, Integer, String)
+     */
+    public WebEndpointResponse<byte[]> getEnvironment(@Nullable String prefix, @Nullable String glob,
+                                                      @Nullable Integer limit, @Nullable String cursor) {
+        return getEnvironment(prefix, glob, null, limit, cursor);
+    }
+
+    /**
+     * Returns the filtered environment variables selected by the query parameters as JSON. Without
+     * parameters the snapshot's pre-encoded JSON is returned; otherwise the selected entries are
+     * encoded straight from the sorted snapshot.
+     *
+     * @param prefix only names starting with this prefix
+     * @param glob only names matching this pattern
+     * @param names only these comma-separated names
+     * @param limit the maximum number of entries
+     * @param cursor only names sorting after this one
+     * @return the JSON bytes, a 503 response while the startup scan is pending, or 400 for an invalid limit
+     */
+    @ReadOperation
+    public WebEndpointResponse<byte[]> getEnvironment(@Nullable String prefix, @Nullable String glob,
+                                                      @Nullable String names, @Nullable Integer limit,
+                                                      @Nullable String cursor) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        if (filterService.isScanPending()) {
+            record("actuator", "scan_pending", start, event, EnvJsonWriter.SCAN_PENDING.length);
+            return new WebEndpointResponse<>(EnvJsonWriter.SCAN_PENDING,
+                    WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE, MimeTypeUtils.APPLICATION_JSON);
+        }
+        if (limit != null && limit < 1) {
+            record("actuator", "invalid_query", start, event, EnvJsonWriter.INVALID_QUERY.length);
+            return new WebEndpointResponse<>(EnvJsonWriter.INVALID_QUERY,
+                    WebEndpointResponse.STATUS_BAD_REQUEST, MimeTypeUtils.APPLICATION_JSON);
+        }
+        EnvQuery query = EnvQuery.of(prefix, glob, names, limit, cursor);
+        EnvSnapshot snapshot = filterService.getSnapshot();
+        byte[] json = query.isAll() ? snapshot.getEndpointJson()
+                : EnvJsonWriter.toJson(query.select(snapshot.getEndpointView()), limit != null ? limit : 16);
+        WebEndpointResponse<byte[]> response = new WebEndpointResponse<>(json,
+                WebEndpointResponse.STATUS_OK, MimeTypeUtils.APPLICATION_JSON);
+        record("actuator", "ok", start, event, json.length);
+        return response;
+    }
+
+    /**
+     * Returns the digest of the endpoint view as JSON at {@code /actuator/envprinter/digest}.
+     *
+     * @param part the part of the endpoint, only {@code digest} exists
+     * @return the digest JSON, a 503 response while the startup scan is pending, or 404 for any other part
+     */
+    @ReadOperation
+    public WebEndpointResponse<byte[]> getPart(@Selector String part) {
+        long start = System.nanoTime();
+        EnvPrinterEvents.EndpointRequest event = EnvPrinterEvents.beginEndpointRequest();
+        if (!EnvPrinterEndpoint.DIGEST.equals(part)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (filterService.isScanPending()) {
+            record("actuator_digest", "scan_pending", start, event, EnvJsonWriter.SCAN_PENDING.length);
+            return new WebEndpointResponse<>(EnvJsonWriter.SCAN_PENDING,
+                    WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE, MimeTypeUtils.APPLICATION_JSON);
+        }
+        byte[] json = filterService.getSnapshot().getDigest().toJson();
+        WebEndpointResponse<byte[]> response = new WebEndpointResponse<>(json,
+                WebEndpointResponse.STATUS_OK, MimeTypeUtils.APPLICATION_JSON);
+        record("actuator_digest", "ok", start, event, json.length);
+        return response;
+    }
+
+    /**
+     * Records a served request in the metrics and, when recording, as a flight recorder event.
+     */
+    private void record(String endpoint, String outcome, long start, EnvPrinterEvents.EndpointRequest event, long bytes) {
+        metrics.recordEndpointRequest(endpoint, outcome, System.nanoTime() - start);
+        EnvPrinterEvents.endEndpointRequest(event, endpoint, outcome, bytes);
+    }
+}
@@ -0,0 +1,315 @@
+package com.skywalker.envprinter;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.SystemEnvironmentPropertySource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Dependency graph from the properties of a live {@link ConfigurableEnvironment} to the
+ * environment variables they are resolved from, built by walking the property sources once.
+ *
+ * <p>A property depends on the environment variables that Spring would actually consult for it:
+ * the variable that overrides it through relaxed names ({@code spring.datasource.url} from
+ * {@code SPRING_DATASOURCE_URL}) when the system environment has precedence, otherwise the
+ * placeholders of its value, followed through other properties and nested defaults such as
+ * {@code ${A:${B}}}. A placeholder that no property source defines is a reference to an unset
+ * variable. For each {@code @ConfigurationProperties} prefix, the graph also reports the
+ * variables that affect the bound bean, including variables bound by relaxed binding alone,
+ * which no configuration file mentions.</p>
+ *
+ * <p>Results are memoized per property, so repeated lookups are map reads. Instances are safe to
+ * share between threads.</p>
+ */
+public final class EnvPropertyGraph {
+
+    /**
+     * Name of the property source Spring Boot attaches to adapt all other sources, which must not
+     * be walked since it resolves names from every source, including the environment.
+     */
+    private static final String ATTACHED_SOURCE_NAME = "configurationProperties";
+
+    /**
+     * Memo entry of properties that no property source defines.
+     */
+    private static final Set<String> UNDEFINED = Collections.unmodifiableSet(new HashSet<>());
+
+    private final List<PropertySource<?>> sources;
+    private final Map<String, Set<String>> resolved = new HashMap<>();
+    private final Set<String> variables;
+    private final SortedMap<String, SortedSet<String>> boundVariables;
+    private final int propertyCount;
+
+    private EnvPropertyGraph(List<PropertySource<?>> sources, Collection<String> prefixes) {
+        this.sources = sources;
+        Set<String> properties = new LinkedHashSet<>();
+        Map<String, Object> environment = Map.of();
+        for (PropertySource<?> source : sources) {
+            if (source instanceof SystemEnvironmentPropertySource systemEnvironment) {
+                environment = systemEnvironment.getSource();
+            } else if (source instanceof EnumerablePropertySource<?> enumerable) {
+                Collections.addAll(properties, enumerable.getPropertyNames());
+            }
+        }
+        Set<String> used = new HashSet<>();
+        for (String property : properties) {
+            used.addAll(resolve(property));
+        }
+        SortedMap<String, SortedSet<String>> bound = new TreeMap<>();
+        for (String prefix : prefixes) {
+            SortedSet<String> names = boundVariables(prefix, properties, environment.keySet());
+            if (!names.isEmpty()) {
+                bound.put(prefix, Collections.unmodifiableSortedSet(names));
+                used.addAll(names);
+            }
+        }
+        this.variables = Collections.unmodifiableSet(used);
+        this.boundVariables = Collections.unmodifiableSortedMap(bound);
+        this.propertyCount = properties.size();
+    }
+
+    /**
+     * Builds the graph of an environment, with the {@code @ConfigurationProperties} prefixes
+     * declared by the bean definitions of a bean factory.
+     *
+     * @param environment the environment whose property sources are walked
+     * @param beanFactory the bean factory to read prefixes from, or {@code null} for none
+     * @return the graph
+     */
+    static EnvPropertyGraph build(ConfigurableEnvironment environment, ListableBeanFactory beanFactory) {
+        List<PropertySource<?>> sources = new ArrayList<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (!ATTACHED_SOURCE_NAME.equals(source.getName())) {
+                sources.add(source);
+            }
+        }
+        return new EnvPropertyGraph(sources, beanFactory != null ? prefixes(beanFactory) : Set.of());
+    }
+
+    /**
+     * Collects the prefixes of {@code @ConfigurationProperties} beans without creating any bean.
+     */
+    private static Set<String> prefixes(ListableBeanFactory beanFactory) {
+        Set<String> prefixes = new TreeSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            ConfigurationProperties annotation = beanFactory.findAnnotationOnBean(beanName,
+                    ConfigurationProperties.class, false);
+            if (annotation != null && !annotation.prefix().isEmpty()) {
+                prefixes.add(annotation.prefix());
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * @return every environment variable the configuration depends on, set or not
+     */
+    public Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Returns the environment variables a property is resolved from.
+     *
+     * @param property the property name
+     * @return the variable names, empty if the property does not depend on the environment or is undefined
+     */
+    public synchronized Set<String> getVariables(String property) {
+        return Collections.unmodifiableSet(resolve(property));
+    }
+
+    /**
+     * @return the variables that affect each {@code @ConfigurationProperties} prefix, sorted by prefix
+     */
+    public SortedMap<String, SortedSet<String>> getBoundVariables() {
+        return boundVariables;
+    }
+
+    /**
+     * @return the number of properties walked to build the graph
+     */
+    public int getPropertyCount() {
+        return propertyCount;
+    }
+
+    /**
+     * Resolves a property through the sources in precedence order, like a placeholder would be.
+     * Memoized; a property under resolution resolves to nothing, which breaks cycles.
+     */
+    private Set<String> resolve(String property) {
+        Set<String> memo = resolved.get(property);
+        if (memo != null) {
+            return memo;
+        }
+        resolved.put(property, Set.of());
+        Set<String> names = UNDEFINED;
+        for (PropertySource<?> source : sources) {
+            if (source instanceof SystemEnvironmentPropertySource systemEnvironment) {
+                String variable = variableName(systemEnvironment.getSource(), property);
+                if (variable != null) {
+                    names = Set.of(variable);
+                    break;
+                }
+            } else if (source.containsProperty(property)) {
+                Object value = source.getProperty(property);
+                names = new HashSet<>();
+                if (value != null) {
+                    collectPlaceholders(value.toString(), names);
+                }
+                break;
+            }
+        }
+        resolved.put(property, names);
+        return names;
+    }
+
+    /**
+     * Adds the variables of every placeholder in a value, including the keys and defaults of nested placeholders.
+     */
+    private void collectPlaceholders(String value, Set<String> names) {
+        int start = value.indexOf("${");
+        while (start >= 0) {
+            int end = closingBrace(value, start + 2);
+            if (end < 0) {
+                return;
+            }
+            String content = value.substring(start + 2, end);
+            int separator = defaultSeparator(content);
+            String key = (separator >= 0 ? content.substring(0, separator) : content).trim();
+            if (key.contains("${")) {
+                collectPlaceholders(key, names);
+            } else if (!key.isEmpty()) {
+                Set<String> variables = resolve(key);
+                if (variables == UNDEFINED) {
+                    names.add(unsetVariableName(key));
+                } else {
+                    names.addAll(variables);
+                }
+            }
+            if (separator >= 0) {
+                collectPlaceholders(content.substring(separator + 1), names);
+            }
+            start = value.indexOf("${", end + 1);
+        }
+    }
+
+    private static int closingBrace(String value, int from) {
+        int depth = 0;
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '$' && i + 1 < value.length() && value.charAt(i + 1) == '{') {
+                depth++;
+                i++;
+            } else if (c == '}') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    private static int defaultSeparator(String content) {
+        int depth = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '$' && i + 1 < content.length() && content.charAt(i + 1) == '{') {
+                depth++;
+                i++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == ':' && depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the variable a property name resolves to, trying the same names as
+     * {@link SystemEnvironmentPropertySource}: the name itself, with dots and dashes as
+     * underscores, and each of these in upper case.
+     */
+    private static String variableName(Map<String, Object> environment, String property) {
+        String variable = variableCandidate(environment, property);
+        if (variable == null) {
+            String upperCase = property.toUpperCase();
+            if (!upperCase.equals(property)) {
+                variable = variableCandidate(environment, upperCase);
+            }
+        }
+        return variable;
+    }
+
+    private static String variableCandidate(Map<String, Object> environment, String name) {
+        if (environment.containsKey(name)) {
+            return name;
+        }
+        String noDots = name.replace('.', '_');
+        if (!name.equals(noDots) && environment.containsKey(noDots)) {
+            return noDots;
+        }
+        String noHyphens = name.replace('-', '_');
+        if (!name.equals(noHyphens) && environment.containsKey(noHyphens)) {
+            return noHyphens;
+        }
+        String noDotsNoHyphens = noDots.replace('-', '_');
+        if (!noDots.equals(noDotsNoHyphens) && environment.containsKey(noDotsNoHyphens)) {
+            return noDotsNoHyphens;
+        }
+        return null;
+    }
+
+    /**
+     * Names the variable an undefined placeholder refers to: the key itself when it looks like a
+     * variable name, otherwise its upper case form with underscores.
+     */
+    private static String unsetVariableName(String key) {
+        if (EnvReferenceExtractor.isLikelyEnvVar(key)) {
+            return key;
+        }
+        return key.toUpperCase().replace('.', '_').replace('-', '_');
+    }
+
+    /**
+     * Collects the variables bound below a prefix: those of its properties, and those set in the
+     * environment whose relaxed name lies below the prefix.
+     */
+    private SortedSet<String> boundVariables(String prefix, Set<String> properties, Set<String> environment) {
+        SortedSet<String> names = new TreeSet<>();
+        ConfigurationPropertyName root = ConfigurationPropertyName.ofIfValid(prefix);
+        if (root == null) {
+            return names;
+        }
+        for (String property : properties) {
+            ConfigurationPropertyName name = ConfigurationPropertyName.ofIfValid(property);
+            if (name != null && root.isAncestorOf(name)) {
+                names.addAll(resolve(property));
+            }
+        }
+        for (String variable : environment) {
+            if (root.isAncestorOf(ConfigurationPropertyName.adapt(variable, '_'))) {
+                names.add(variable);
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,215 @@
+package com.skywalker.envprinter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Query over the sorted endpoint view: a name prefix, a name pattern, a list of exact names,
+ * a page size and a cursor.
+ *
+ * <p>Prefixes are answered with a range lookup on the sorted map, so a query for {@code DB_}
+ * only visits the {@code DB_} entries. The literal part of a pattern before its first wildcard
+ * narrows the range the same way. The cursor is the last name of the previous page; the next
+ * page starts right after it. Results are iterated lazily from the snapshot, never copied.
+ * Exact names are looked up one by one, so fetching a few names never walks the whole view.</p>
+ *
+ * <p>Instances are immutable and safe to share between threads.</p>
+ */
+final class EnvQuery {
+
+    static final EnvQuery ALL = new EnvQuery("", null, null, 0, null);
+
+    private final String prefix;
+    private final EnvNameMatcher pattern;
+    private final SortedSet<String> names;
+    private final int limit;
+    private final String cursor;
+
+    private EnvQuery(String prefix, EnvNameMatcher pattern, SortedSet<String> names, int limit, String cursor) {
+        this.prefix = prefix;
+        this.pattern = pattern;
+        this.names = names;
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Creates a query from request parameters, any of which may be {@code null}.
+     *
+     * @param prefix only names starting with this prefix
+     * @param glob only names matching this pattern, with the syntax of {@code env.printer.include}
+     * @param limit the maximum number of entries, at least 1
+     * @param cursor only names after this one, usually the last name of the previous page
+     * @return the query
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    static EnvQuery of(String prefix, String glob, Integer limit, String cursor) {
+        return of(prefix, glob, null, limit, cursor);
+    }
+
+    /**
+     * Creates a query from request parameters, any of which may be {@code null}.
+     *
+     * @param prefix only names starting with this prefix
+     * @param glob only names matching this pattern, with the syntax of {@code env.printer.include}
+     * @param names only these comma-separated names
+     * @param limit the maximum number of entries, at least 1
+     * @param cursor only names after this one, usually the last name of the previous page
+     * @return the query
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    static EnvQuery of(String prefix, String glob, String names, Integer limit, String cursor) {
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        String rangePrefix = prefix != null ? prefix : "";
+        EnvNameMatcher pattern = null;
+        if (glob != null && !glob.isBlank()) {
+            String trimmed = glob.trim();
+            pattern = EnvNameMatcher.compile(List.of(trimmed));
+            String literal = literalPrefix(trimmed);
+            if (literal.startsWith(rangePrefix)) {
+                rangePrefix = literal;
+            } else if (!rangePrefix.startsWith(literal)) {
+                // The prefix and the pattern exclude each other
+                return new EnvQuery(rangePrefix, EnvNameMatcher.compile(List.of()), null, 0, null);
+            }
+        }
+        SortedSet<String> nameSet = null;
+        if (names != null && !names.isBlank()) {
+            nameSet = new TreeSet<>();
+            for (String name : names.split(",")) {
+                if (!name.isBlank()) {
+                    nameSet.add(name.trim());
+                }
+            }
+        }
+        if (rangePrefix.isEmpty() && pattern == null && nameSet == null && limit == null
+                && (cursor == null || cursor.isEmpty())) {
+            return ALL;
+        }
+        return new EnvQuery(rangePrefix, pattern, nameSet, limit != null ? limit : 0,
+                cursor != null && !cursor.isEmpty() ? cursor : null);
+    }
+
+    /**
+     * @return true if this query selects the whole view, so the pre-encoded response can be used
+     */
+    boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * Selects the matching entries of a sorted view, in name order.
+     *
+     * @param view the sorted view
+     * @return a lazy iterable over the view's entries
+     */
+    Iterable<Map.Entry<String, String>> select(NavigableMap<String, String> view) {
+        NavigableMap<String, String> range = range(view);
+        if (names != null) {
+            List<Map.Entry<String, String>> named = new ArrayList<>();
+            for (String name : names) {
+                // The view's own entry, since values may be null
+                Map.Entry<String, String> entry = range.ceilingEntry(name);
+                if (entry != null && entry.getKey().equals(name)) {
+                    named.add(entry);
+                }
+            }
+            return () -> new Selection(named.iterator(), pattern, limit);
+        }
+        return () -> new Selection(range.entrySet().iterator(), pattern, limit);
+    }
+
+    private NavigableMap<String, String> range(NavigableMap<String, String> view) {
+        String end = prefixEnd(prefix);
+        String start = prefix;
+        boolean inclusive = true;
+        if (cursor != null && cursor.compareTo(prefix) >= 0) {
+            if (end != null && cursor.compareTo(end) >= 0) {
+                return Collections.emptyNavigableMap();
+            }
+            start = cursor;
+            inclusive = false;
+        }
+        return end != null ? view.subMap(start, inclusive, end, false) : view.tailMap(start, inclusive);
+    }
+
+    /**
+     * Returns the smallest string greater than every string starting with the prefix, or
+     * {@code null} if there is none, as for the empty prefix.
+     */
+    private static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+
+    private static String literalPrefix(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                return glob.substring(0, i);
+            }
+        }
+        // Exact names and trailing-underscore prefixes both start with the whole pattern
+        return glob;
+    }
+
+    /**
+     * Iterator over a range that skips names not matching the pattern and stops at the limit.
+     */
+    private static final class Selection implements Iterator<Map.Entry<String, String>> {
+
+        private final Iterator<Map.Entry<String, String>> entries;
+        private final EnvNameMatcher pattern;
+        private int remaining;
+        private Map.Entry<String, String> next;
+
+        Selection(Iterator<Map.Entry<String, String>> entries, EnvNameMatcher pattern, int limit) {
+            this.entries = entries;
+            this.pattern = pattern;
+            this.remaining = limit > 0 ? limit : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (remaining == 0) {
+                return false;
+            }
+            while (entries.hasNext()) {
+                Map.Entry<String, String> entry = entries.next();
+                if (pattern == null || pattern.matches(entry.getKey())) {
+                    next = entry;
+                    remaining--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, String> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
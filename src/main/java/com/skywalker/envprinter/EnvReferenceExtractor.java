@@ -0,0 +1,399 @@
+package com.skywalker.envprinter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Extracts environment variable references from text.
+ * Shared by the runtime {@link EnvUsageScanner} and the build-time {@link EnvIndexProcessor},
+ * so it deliberately depends on nothing but the JDK.
+ *
+ * <p>The text is tokenized in a single pass: the scanner looks for the {@code ${} and
+ * {@code System.getenv(} anchors and validates candidate names in place, so a {@code String}
+ * is only allocated for names that are actually reported. {@code @Value("${VAR}")} expressions
+ * are covered by the {@code ${} anchor. As with the line-based patterns this replaces, a reference
+ * never spans a line break.</p>
+ *
+ * <p>Besides character input, UTF-8 encoded bytes can be scanned directly from a {@link ByteBuffer},
+ * such as a memory-mapped file. All anchors are ASCII and UTF-8 multi-byte sequences never contain
+ * ASCII bytes, so no decoding is needed except for the reported names.</p>
+ */
+final class EnvReferenceExtractor {
+
+    private static final char[] GETENV_ANCHOR = "System.getenv(".toCharArray();
+
+    private static final byte[] GETENV_ANCHOR_BYTES = "System.getenv(".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String[] PREFIXES = {"env.", "environment.", "sys.", "system."};
+
+    private EnvReferenceExtractor() {
+    }
+
+    /**
+     * Finds all environment variable references in the given text,
+     * covering {@code ${VAR}} placeholders, {@code @Value("${VAR}")} annotations
+     * and {@code System.getenv("VAR")} calls.
+     *
+     * @param text the text to inspect
+     * @param sink receives each detected variable name
+     */
+    static void extract(CharSequence text, Consumer<String> sink) {
+        char[] chars = text.toString().toCharArray();
+        extract(chars, 0, chars.length, sink);
+    }
+
+    /**
+     * Finds all environment variable references in a range of a character buffer.
+     *
+     * @param buf the buffer to inspect
+     * @param start the first character to inspect
+     * @param end the index after the last character to inspect
+     * @param sink receives each detected variable name
+     */
+    static void extract(char[] buf, int start, int end, Consumer<String> sink) {
+        scan(buf, start, end, true, sink);
+    }
+
+    /**
+     * Finds {@code ${VAR}} and {@code ${VAR:default}} placeholders in the given text.
+     * Placeholders nested in a default value, as in {@code ${A:${B}}}, are reported too.
+     *
+     * @param text the text to inspect, e.g. a property value or an {@code @Value} expression
+     * @param sink receives each detected variable name
+     */
+    static void extractPlaceholders(CharSequence text, Consumer<String> sink) {
+        char[] chars = text.toString().toCharArray();
+        scan(chars, 0, chars.length, false, sink);
+    }
+
+    /**
+     * Finds all environment variable references in UTF-8 encoded bytes, from the buffer's
+     * position to its limit. The buffer's position and limit are not changed.
+     *
+     * @param buf the bytes to inspect, heap or direct
+     * @param sink receives each detected variable name
+     */
+    static void extract(ByteBuffer buf, Consumer<String> sink) {
+        new ByteScan(buf, sink).run();
+    }
+
+    private static void scan(char[] buf, int start, int end, boolean getenv, Consumer<String> sink) {
+        int i = start;
+        while (i < end - 1) {
+            char c = buf[i];
+            if (c == '$' && buf[i + 1] == '{') {
+                i = placeholder(buf, i + 2, end, sink);
+            } else if (getenv && c == 'S' && startsWith(buf, i, end, GETENV_ANCHOR)) {
+                i = getenvCall(buf, i + GETENV_ANCHOR.length, end, sink);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Matches {@code NAME} or {@code NAME:default} followed by a closing brace on the same line.
+     *
+     * @return the position to resume scanning from, which is inside the default value if any
+     */
+    private static int placeholder(char[] buf, int nameStart, int end, Consumer<String> sink) {
+        int nameEnd = nameStart;
+        while (nameEnd < end) {
+            char c = buf[nameEnd];
+            if (c == '}' || c == ':' || c == '\n' || c == '\r') {
+                break;
+            }
+            nameEnd++;
+        }
+        if (nameEnd == nameStart || nameEnd == end || buf[nameEnd] == '\n' || buf[nameEnd] == '\r') {
+            return nameStart;
+        }
+        if (buf[nameEnd] == ':' && !closesOnLine(buf, nameEnd + 1, end)) {
+            return nameStart;
+        }
+        report(buf, nameStart, nameEnd, true, sink);
+        return nameEnd + 1;
+    }
+
+    /**
+     * Matches a quoted constant argument followed by a closing parenthesis.
+     */
+    private static int getenvCall(char[] buf, int pos, int end, Consumer<String> sink) {
+        if (pos >= end || !isQuote(buf[pos])) {
+            return pos;
+        }
+        int nameStart = pos + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < end && !isQuote(buf[nameEnd]) && buf[nameEnd] != '\n' && buf[nameEnd] != '\r') {
+            nameEnd++;
+        }
+        if (nameEnd == nameStart || nameEnd + 1 >= end || !isQuote(buf[nameEnd]) || buf[nameEnd + 1] != ')') {
+            return nameStart;
+        }
+        report(buf, nameStart, nameEnd, false, sink);
+        return nameEnd + 2;
+    }
+
+    /**
+     * Trims whitespace and known prefixes from the candidate name, validates it
+     * and only then allocates the reported {@code String}.
+     */
+    private static void report(char[] buf, int start, int end, boolean validate, Consumer<String> sink) {
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+        for (String prefix : PREFIXES) {
+            if (startsWith(buf, start, end, prefix)) {
+                start += prefix.length();
+                break;
+            }
+        }
+        if (start == end || (validate && !isLikelyEnvVar(buf, start, end))) {
+            return;
+        }
+        sink.accept(new String(buf, start, end - start));
+    }
+
+    /**
+     * Trims prefixes from variable names to get the actual environment variable name.
+     * For example, "env.DB_PASSWORD" becomes "DB_PASSWORD"
+     */
+    static String trimEnvVarName(String varName) {
+        if (varName == null || varName.isEmpty()) {
+            return varName;
+        }
+
+        // Remove common prefixes
+        for (String prefix : PREFIXES) {
+            if (varName.startsWith(prefix)) {
+                return varName.substring(prefix.length());
+            }
+        }
+
+        return varName;
+    }
+
+    /**
+     * Checks if a variable name looks like an environment variable.
+     * Environment variables are typically UPPERCASE_WITH_UNDERSCORES.
+     */
+    static boolean isLikelyEnvVar(String varName) {
+        if (varName == null || varName.isEmpty()) {
+            return false;
+        }
+        char[] chars = varName.toCharArray();
+        return isLikelyEnvVar(chars, 0, chars.length);
+    }
+
+    /**
+     * Checks a name in place: either {@code [A-Z][A-Z0-9_]*} or anything containing an underscore.
+     */
+    private static boolean isLikelyEnvVar(char[] buf, int start, int end) {
+        boolean upperCase = buf[start] >= 'A' && buf[start] <= 'Z';
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            if (c == '_') {
+                return true;
+            }
+            if (upperCase && !((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                upperCase = false;
+            }
+        }
+        return upperCase;
+    }
+
+    private static boolean closesOnLine(char[] buf, int pos, int end) {
+        for (int i = pos; i < end; i++) {
+            char c = buf[i];
+            if (c == '}') {
+                return true;
+            }
+            if (c == '\n' || c == '\r') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'';
+    }
+
+    private static boolean startsWith(char[] buf, int pos, int end, char[] anchor) {
+        if (end - pos < anchor.length) {
+            return false;
+        }
+        for (int i = 0; i < anchor.length; i++) {
+            if (buf[pos + i] != anchor[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(char[] buf, int pos, int end, String prefix) {
+        if (end - pos < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf[pos + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Byte-level counterpart of the character scan above, reading the buffer with absolute gets.
+     * Names are copied into a reusable scratch array and decoded only when reported.
+     */
+    private static final class ByteScan {
+
+        private final ByteBuffer buf;
+        private final int end;
+        private final Consumer<String> sink;
+        private byte[] scratch = new byte[64];
+
+        ByteScan(ByteBuffer buf, Consumer<String> sink) {
+            this.buf = buf;
+            this.end = buf.limit();
+            this.sink = sink;
+        }
+
+        void run() {
+            int i = buf.position();
+            while (i < end - 1) {
+                byte b = buf.get(i);
+                if (b == '$' && buf.get(i + 1) == '{') {
+                    i = placeholder(i + 2);
+                } else if (b == 'S' && startsWithGetenv(i)) {
+                    i = getenvCall(i + GETENV_ANCHOR_BYTES.length);
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private int placeholder(int nameStart) {
+            int nameEnd = nameStart;
+            while (nameEnd < end) {
+                byte b = buf.get(nameEnd);
+                if (b == '}' || b == ':' || b == '\n' || b == '\r') {
+                    break;
+                }
+                nameEnd++;
+            }
+            if (nameEnd == nameStart || nameEnd == end || buf.get(nameEnd) == '\n' || buf.get(nameEnd) == '\r') {
+                return nameStart;
+            }
+            if (buf.get(nameEnd) == ':' && !closesOnLine(nameEnd + 1)) {
+                return nameStart;
+            }
+            report(nameStart, nameEnd, true);
+            return nameEnd + 1;
+        }
+
+        private int getenvCall(int pos) {
+            if (pos >= end || !isQuote(buf.get(pos))) {
+                return pos;
+            }
+            int nameStart = pos + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < end && !isQuote(buf.get(nameEnd)) && buf.get(nameEnd) != '\n' && buf.get(nameEnd) != '\r') {
+                nameEnd++;
+            }
+            if (nameEnd == nameStart || nameEnd + 1 >= end || !isQuote(buf.get(nameEnd)) || buf.get(nameEnd + 1) != ')') {
+                return nameStart;
+            }
+            report(nameStart, nameEnd, false);
+            return nameEnd + 2;
+        }
+
+        private void report(int start, int end, boolean validate) {
+            while (start < end && (buf.get(start) & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (buf.get(end - 1) & 0xFF) <= ' ') {
+                end--;
+            }
+            for (String prefix : PREFIXES) {
+                if (startsWith(start, end, prefix)) {
+                    start += prefix.length();
+                    break;
+                }
+            }
+            if (start == end || (validate && !isLikelyEnvVar(start, end))) {
+                return;
+            }
+            int length = end - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buf.get(start, scratch, 0, length);
+            sink.accept(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Same rule as for characters; bytes of non-ASCII characters are never upper-case letters.
+         */
+        private boolean isLikelyEnvVar(int start, int end) {
+            byte first = buf.get(start);
+            boolean upperCase = first >= 'A' && first <= 'Z';
+            for (int i = start; i < end; i++) {
+                byte b = buf.get(i);
+                if (b == '_') {
+                    return true;
+                }
+                if (upperCase && !((b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9'))) {
+                    upperCase = false;
+                }
+            }
+            return upperCase;
+        }
+
+        private boolean closesOnLine(int pos) {
+            for (int i = pos; i < end; i++) {
+                byte b = buf.get(i);
+                if (b == '}') {
+                    return true;
+                }
+                if (b == '\n' || b == '\r') {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isQuote(byte b) {
+            return b == '"' || b == '\'';
+        }
+
+        private boolean startsWithGetenv(int pos) {
+            if (end - pos < GETENV_ANCHOR_BYTES.length) {
+                return false;
+            }
+            for (int i = 0; i < GETENV_ANCHOR_BYTES.length; i++) {
+                if (buf.get(pos + i) != GETENV_ANCHOR_BYTES[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean startsWith(int pos, int end, String prefix) {
+            if (end - pos < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (buf.get(pos + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
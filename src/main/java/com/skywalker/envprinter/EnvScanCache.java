@@ -0,0 +1,359 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of scan results, so that restarts with an unchanged classpath skip the scan.
+ *
+ * <p>Results are stored per scanned unit (a configuration file or a class root) together with a
+ * stamp built from its size and modification time. A fingerprint over all classpath archives
+ * allows reusing the whole result without resolving any resource; when it does not match, only
+ * units whose stamp changed are rescanned. Classpaths with directories have no fingerprint,
+ * because a directory's own timestamp does not reflect changes to nested files.</p>
+ *
+ * <p>The cache is a UTF-8 text file named after the classpath layout, with a
+ * {@code fingerprint<TAB>value} line followed by {@code stamp<TAB>unit<TAB>NAME,NAME} lines.
+ * Units without a stamp are not stored, and neither is the fingerprint then, so that they are
+ * rescanned on the next start.</p>
+ *
+ * <p>The cache decides which variables project-only mode exposes, so it lives in the user's own
+ * {@code ~/.cache/env-printer} by default, created accessible to its owner only. On POSIX file
+ * systems, a directory or file owned by another user or writable by group or others is ignored.</p>
+ */
+final class EnvScanCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvScanCache.class);
+
+    private static final String HEADER = "# env-printer scan cache v1";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final Path file;
+
+    EnvScanCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates the cache for the classpath of the given class loader.
+     *
+     * @param directory the cache directory, or {@code null} for {@code user.home/.cache/env-printer}
+     * @param classLoader the class loader whose classpath is scanned
+     * @return the cache
+     */
+    static EnvScanCache create(String directory, ClassLoader classLoader) {
+        Path dir = directory != null && !directory.isBlank()
+                ? Paths.get(directory)
+                : Paths.get(System.getProperty("user.home"), ".cache", "env-printer");
+        String layout = DigestUtils.md5DigestAsHex(String.join("\n", classpathEntries(classLoader))
+                .getBytes(StandardCharsets.UTF_8));
+        return new EnvScanCache(dir.resolve("scan-" + layout + ".cache"));
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Computes a fingerprint over the scan settings and the path, size and modification time
+     * of every classpath archive.
+     *
+     * @param classLoader the class loader whose classpath is scanned
+     * @param settings the scan settings that affect the result
+     * @return the fingerprint, or {@code null} if the classpath contains directories
+     */
+    static String fingerprint(ClassLoader classLoader, String settings) {
+        StringBuilder builder = new StringBuilder(settings);
+        for (String entry : classpathEntries(classLoader)) {
+            File archive = new File(entry);
+            if (archive.isDirectory()) {
+                return null;
+            }
+            builder.append('\n').append(entry).append('\t').append(stamp(archive));
+        }
+        return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lists the file system entries of {@code java.class.path} and of every {@link URLClassLoader}
+     * in the class loader chain. Archives nested in another archive are covered by the outer one.
+     */
+    private static List<String> classpathEntries(ClassLoader classLoader) {
+        Set<String> entries = new LinkedHashSet<>();
+        for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(new File(entry).getAbsolutePath());
+            }
+        }
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader urlClassLoader) {
+                for (URL url : urlClassLoader.getURLs()) {
+                    if (ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+                        try {
+                            entries.add(ResourceUtils.getFile(url).getAbsolutePath());
+                        } catch (IOException e) {
+                            entries.add(url.toString());
+                        }
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * Stamps a configuration resource by content length and modification time.
+     *
+     * @return the stamp, or {@code null} if it cannot be determined
+     */
+    static String stamp(Resource resource) {
+        try {
+            return resource.contentLength() + ":" + resource.lastModified();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stamps a class root. Jar roots use the size and modification time of the jar, directory
+     * roots the number, total size and latest modification time of their class files.
+     *
+     * @return the stamp, or {@code null} if it cannot be determined
+     */
+    static String stamp(URL root) {
+        try {
+            if (ResourceUtils.URL_PROTOCOL_FILE.equals(root.getProtocol())) {
+                return stampDirectory(ResourceUtils.getFile(root).toPath());
+            }
+            URL archive = ResourceUtils.extractArchiveURL(root);
+            if (ResourceUtils.URL_PROTOCOL_FILE.equals(archive.getProtocol())) {
+                return stamp(ResourceUtils.getFile(archive));
+            }
+            return stamp(new UrlResource(archive));
+        } catch (IOException e) {
+            logger.debug("Could not stamp class root {}: {}", root, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String stamp(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    private static String stampDirectory(Path directory) throws IOException {
+        long[] totals = new long[3];
+        try (Stream<Path> files = Files.find(directory, Integer.MAX_VALUE,
+                (path, attributes) -> attributes.isRegularFile() && path.toString().endsWith(".class"))) {
+            files.forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    totals[0]++;
+                    totals[1] += attributes.size();
+                    totals[2] = Math.max(totals[2], attributes.lastModifiedTime().toMillis());
+                } catch (IOException e) {
+                    totals[2] = Long.MAX_VALUE;
+                }
+            });
+        }
+        return "d" + totals[0] + ":" + totals[1] + ":" + totals[2];
+    }
+
+    /**
+     * Reads the cache file. A missing or unreadable file yields empty contents.
+     *
+     * @return the cached contents
+     */
+    Contents load() {
+        if (!Files.isRegularFile(file) || !isPrivate(file.toAbsolutePath().getParent()) || !isPrivate(file)) {
+            return Contents.EMPTY;
+        }
+        String fingerprint = null;
+        Map<String, Unit> units = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 2 && FINGERPRINT.equals(fields[0])) {
+                    fingerprint = fields[1];
+                } else if (fields.length == 3) {
+                    Set<String> names = new HashSet<>();
+                    for (String name : fields[2].split(",")) {
+                        if (!name.isEmpty()) {
+                            names.add(name);
+                        }
+                    }
+                    units.put(fields[1], new Unit(fields[0], names));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Ignoring unreadable scan cache {}: {}", file, e.getMessage());
+            return Contents.EMPTY;
+        }
+        return new Contents(fingerprint, units);
+    }
+
+    /**
+     * Writes the cache file, replacing the previous one atomically where the file system allows.
+     * Units without a stamp are not stored, and the fingerprint is then left out so that a restart
+     * rescans them. Failures are logged and otherwise ignored.
+     *
+     * @param fingerprint the classpath fingerprint, or {@code null}
+     * @param units the scanned units keyed by URL
+     */
+    void store(String fingerprint, Map<String, Unit> units) {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createDirectories(directory);
+            }
+            if (!isPrivate(directory)) {
+                return;
+            }
+            boolean complete = units.values().stream().allMatch(unit -> unit.stamp != null);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                    if (fingerprint != null && complete) {
+                        writer.write(FINGERPRINT + "\t" + fingerprint);
+                        writer.newLine();
+                    }
+                    for (Map.Entry<String, Unit> entry : units.entrySet()) {
+                        Unit unit = entry.getValue();
+                        if (unit.stamp != null) {
+                            writer.write(unit.stamp + "\t" + entry.getKey() + "\t"
+                                    + String.join(",", new TreeSet<>(unit.names)));
+                            writer.newLine();
+                        }
+                    }
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.debug("Could not write scan cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that a path is owned by the current user and not writable by group or others.
+     * File systems without POSIX attributes rely on their own access control and always pass.
+     */
+    private static boolean isPrivate(Path path) {
+        try {
+            PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+            if (view == null) {
+                return true;
+            }
+            PosixFileAttributes attributes = view.readAttributes();
+            UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+            Set<PosixFilePermission> permissions = attributes.permissions();
+            if (attributes.owner().equals(user)
+                    && !permissions.contains(PosixFilePermission.GROUP_WRITE)
+                    && !permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                return true;
+            }
+            logger.warn("Ignoring scan cache {}: it must be owned by {} and not writable by group or others",
+                    path, user.getName());
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Ignoring scan cache {}: could not verify its owner: {}", path, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * The scan result of one unit and the stamp it was computed for.
+     */
+    static final class Unit {
+
+        private final String stamp;
+        private final Set<String> names;
+
+        Unit(String stamp, Set<String> names) {
+            this.stamp = stamp;
+            this.names = names;
+        }
+
+        Set<String> getNames() {
+            return names;
+        }
+
+        boolean isCurrent(String currentStamp) {
+            return stamp != null && stamp.equals(currentStamp);
+        }
+    }
+
+    /**
+     * Contents of a cache file.
+     */
+    static final class Contents {
+
+        static final Contents EMPTY = new Contents(null, Collections.emptyMap());
+
+        private final String fingerprint;
+        private final Map<String, Unit> units;
+
+        Contents(String fingerprint, Map<String, Unit> units) {
+            this.fingerprint = fingerprint;
+            this.units = units;
+        }
+
+        boolean matches(String currentFingerprint) {
+            return fingerprint != null && fingerprint.equals(currentFingerprint);
+        }
+
+        Unit get(String key) {
+            return units.get(key);
+        }
+
+        Map<String, Unit> getUnits() {
+            return units;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.skywalker.envprinter;
+
+import org.springframework.util.DigestUtils;
+
+import java.util.NavigableMap;
+import java.util.Objects;
+
+/**
+ * Immutable, pre-sorted view of the filtered environment, built by {@link EnvFilterService}
+ * and served as-is until one of its inputs changes.
+ *
+ * <p>The variables, the masked view and the endpoint view are {@link CompactEnvMap}s sharing one
+ * sorted array of names, so a snapshot costs a few array slots per variable whichever views are used.</p>
+ */
+public final class EnvSnapshot {
+
+    private final long version;
+    private final long contentHash;
+    private final CompactEnvMap unmaskedVariables;
+    private final NavigableMap<String, String> variables;
+    private final NavigableMap<String, String> endpointView;
+    private volatile EncodedView encodedEndpointView;
+    private volatile EnvDigest digest;
+
+    EnvSnapshot(long version, NavigableMap<String, String> filtered, boolean showValues) {
+        this(version, filtered, showValues, EnvValueMasker.NONE);
+    }
+
+    /**
+     * Creates a snapshot of the given sorted variables, copied unless they already are a {@link CompactEnvMap}.
+     * Secret values are masked once here, so every reader shares the same masked views.
+     */
+    EnvSnapshot(long version, NavigableMap<String, String> filtered, boolean showValues, EnvValueMasker masker) {
+        this.version = version;
+        this.unmaskedVariables = CompactEnvMap.copyOf(filtered);
+        this.contentHash = contentHash(unmaskedVariables);
+        this.variables = masker.mask(unmaskedVariables);
+        // Names only, with empty string values, without copying the names
+        this.endpointView = showValues ? this.variables : unmaskedVariables.namesOnly();
+    }
+
+    /**
+     * @return the version of this snapshot, incremented on every rebuild
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a 64-bit hash of the names and values, computed once when the snapshot is built.
+     * Snapshots with different hashes differ; equal hashes are confirmed by comparing the maps.
+     *
+     * @return the content hash
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return the filtered variables sorted by name, with secret values masked; values are
+     * {@code null} for unset project variables
+     */
+    public NavigableMap<String, String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the filtered variables with their actual values, for change detection only
+     */
+    CompactEnvMap getUnmaskedVariables() {
+        return unmaskedVariables;
+    }
+
+    /**
+     * @return the view returned by the endpoints, with masked secrets, or empty string values when values are hidden
+     */
+    public NavigableMap<String, String> getEndpointView() {
+        return endpointView;
+    }
+
+    /**
+     * Returns the endpoint view encoded as UTF-8 JSON. Encoded once per snapshot on first use.
+     *
+     * @return the JSON bytes; callers must not modify the array
+     */
+    public byte[] getEndpointJson() {
+        return encodedEndpointView().json;
+    }
+
+    /**
+     * Returns a strong entity tag for the endpoint view, derived from its JSON encoding.
+     *
+     * @return the quoted entity tag
+     */
+    public String getEtag() {
+        return encodedEndpointView().etag;
+    }
+
+    /**
+     * Returns the digest of the endpoint view, for comparing instances. Computed once per snapshot on first use.
+     *
+     * @return the digest
+     */
+    public EnvDigest getDigest() {
+        EnvDigest computed = digest;
+        if (computed == null) {
+            // Benign race: concurrent callers compute identical values
+            computed = EnvDigest.of(this);
+            digest = computed;
+        }
+        return computed;
+    }
+
+    /**
+     * @return true if the endpoint JSON and, when requested, the digest are already computed,
+     * so that serving them does no work proportional to the number of variables
+     */
+    boolean isPrepared(boolean withDigest) {
+        return encodedEndpointView != null && (!withDigest || digest != null);
+    }
+
+    /**
+     * Checks whether this snapshot holds exactly the given variables, comparing hashes first.
+     */
+    boolean hasContent(NavigableMap<String, String> filtered) {
+        CompactEnvMap compact = CompactEnvMap.copyOf(filtered);
+        return contentHash == contentHash(compact) && unmaskedVariables.equals(compact);
+    }
+
+    private static long contentHash(CompactEnvMap variables) {
+        long hash = 1;
+        for (int i = 0; i < variables.size(); i++) {
+            hash = hash * 1_000_003L + variables.keyAt(i).hashCode();
+            hash = hash * 1_000_003L + Objects.hashCode(variables.valueAt(i));
+        }
+        return hash;
+    }
+
+    private EncodedView encodedEndpointView() {
+        EncodedView encoded = encodedEndpointView;
+        if (encoded == null) {
+            // Benign race: concurrent callers compute identical values
+            byte[] json = EnvJsonWriter.toJson(endpointView);
+            encoded = new EncodedView(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+            encodedEndpointView = encoded;
+        }
+        return encoded;
+    }
+
+    private static final class EncodedView {
+
+        private final byte[] json;
+        private final String etag;
+
+        EncodedView(byte[] json, String etag) {
+            this.json = json;
+            this.etag = etag;
+        }
+    }
+}
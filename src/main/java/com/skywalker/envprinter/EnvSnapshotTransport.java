@@ -0,0 +1,61 @@
+package com.skywalker.envprinter;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Fetches digests and selected entries from the instances watched by an {@link EnvDriftAggregator}.
+ *
+ * <p>{@link #local(Map)} reads embedded instances in the same JVM, which is how several instances
+ * are tested together; {@link #http(HttpClient, Duration)} calls the digest and {@code names}
+ * query of the endpoints of remote instances. Other transports, such as a service registry or a
+ * message bus, implement this interface.</p>
+ */
+public interface EnvSnapshotTransport {
+
+    /**
+     * Fetches the digest of an instance's endpoint view.
+     *
+     * @param instance the instance identifier, such as a base URL
+     * @return the digest
+     * @throws IOException if the instance cannot be reached or answers with an error
+     */
+    EnvDigest fetchDigest(String instance) throws IOException;
+
+    /**
+     * Fetches the values of some names from an instance's endpoint view.
+     *
+     * @param instance the instance identifier
+     * @param names the names to fetch
+     * @return the values of the names the instance has, {@code null} for unset project variables
+     * @throws IOException if the instance cannot be reached or answers with an error
+     */
+    Map<String, String> fetchEntries(String instance, Collection<String> names) throws IOException;
+
+    /**
+     * Creates a transport over filter services of the same JVM.
+     *
+     * @param instances the filter services, keyed by instance identifier
+     * @return the transport
+     */
+    static EnvSnapshotTransport local(Map<String, EnvFilterService> instances) {
+        return new LocalSnapshotTransport(instances);
+    }
+
+    /**
+     * Creates a transport that calls the endpoints of remote instances. The instance identifier
+     * is the endpoint's base URL, such as {@code http://host:8080/env/env-printer} or
+     * {@code http://host:8080/actuator/envprinter}; the digest is read from {@code <base>/digest}
+     * and entries from {@code <base>?names=...}.
+     *
+     * @param client the HTTP client
+     * @param timeout the timeout of each request
+     * @return the transport
+     */
+    static EnvSnapshotTransport http(HttpClient client, Duration timeout) {
+        return new HttpSnapshotTransport(client, timeout);
+    }
+}
@@ -0,0 +1,77 @@
+package com.skywalker.envprinter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+
+/**
+ * Precomputed index of environment variable references, generated at build time
+ * by {@link EnvIndexProcessor}, or during Spring AOT processing by {@link EnvPrinterAotProcessor},
+ * and read at runtime by {@link EnvUsageScanner}.
+ *
+ * <p>The index is a UTF-8 text file with one reference per line, in the form
+ * {@code NAME<TAB>location}. Lines starting with {@code #} are comments.</p>
+ */
+final class EnvUsageIndex {
+
+    /**
+     * Classpath location of the generated index.
+     */
+    static final String LOCATION = "META-INF/env-printer/index";
+
+    /**
+     * Classpath location of the scan result generated during Spring AOT processing by
+     * {@link EnvPrinterAotProcessor}.
+     */
+    static final String AOT_LOCATION = "META-INF/env-printer/aot-index";
+
+    private static final String HEADER = "# Generated by env-printer at build time. Do not edit.";
+
+    private EnvUsageIndex() {
+    }
+
+    /**
+     * Reads the variable names listed in an index file into the given set.
+     *
+     * @param in the index content
+     * @param names receives the variable names
+     * @throws IOException if the index cannot be read
+     */
+    static void read(InputStream in, Set<String> names) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                names.add(tab >= 0 ? line.substring(0, tab) : line);
+            }
+        }
+    }
+
+    /**
+     * Writes an index file listing each variable name with the locations referencing it.
+     *
+     * @param references variable names mapped to their sorted source locations
+     * @param writer the target writer
+     * @throws IOException if the index cannot be written
+     */
+    static void write(Map<String, SortedSet<String>> references, Appendable writer) throws IOException {
+        writer.append(HEADER);
+        writer.append('\n');
+        for (Map.Entry<String, SortedSet<String>> entry : references.entrySet()) {
+            for (String location : entry.getValue()) {
+                writer.append(entry.getKey());
+                writer.append('\t');
+                writer.append(location);
+                writer.append('\n');
+            }
+        }
+    }
+}
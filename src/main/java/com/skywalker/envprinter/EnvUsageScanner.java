@@ -2,167 +2,681 @@ package com.skywalker.envprinter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Service that scans project files to identify environment variables actually used in the application.
- * Scans configuration files (application.properties, application.yml) and Java source files
+ * Scans configuration files (application.properties, application.yml) and compiled classes
  * for environment variable references.
+ *
+ * <p>When a build-time index generated by {@link EnvIndexProcessor} is on the classpath,
+ * it is used instead and no scanning takes place. Applications running from Spring AOT
+ * artifacts, such as native images, read the scan result baked in by
+ * {@link EnvPrinterAotProcessor}. With {@code env.printer.scan.cache-enabled}, results are
+ * persisted by {@link EnvScanCache} and only changed resources are rescanned on restart.</p>
+ *
+ * <p>By default every jar and directory of the classpath is searched. With
+ * {@code env.printer.scan.scope=application}, only the {@link ApplicationRoots} are.</p>
+ *
+ * <p>With {@code env.printer.scan.environment-enabled}, configuration files are not scanned; the
+ * references are resolved from the live environment through an {@link EnvPropertyGraph} instead.</p>
  */
 public class EnvUsageScanner {
 
     private static final Logger logger = LoggerFactory.getLogger(EnvUsageScanner.class);
 
-    // Pattern to match ${ENV_VAR} in configuration files
-    private static final Pattern PROPERTY_PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{([^}:]+)(?::[^}]*)?\\}");
-    
-    // Pattern to match System.getenv("ENV_VAR") in Java files
-    private static final Pattern GETENV_PATTERN = Pattern.compile("System\\.getenv\\([\"']([^\"']+)[\"']\\)");
-    
-    // Pattern to match @Value("${ENV_VAR}") annotations
-    private static final Pattern VALUE_ANNOTATION_PATTERN = Pattern.compile("@Value\\([\"']\\$\\{([^}:]+)(?::[^}]*)?\\}[\"']\\)");
+    /**
+     * Scan phases of configuration files and their location patterns, in merge order.
+     */
+    private static final String[][] CONFIG_PATTERNS = {
+            {"properties", "application*.properties"},
+            {"yml", "application*.yml"},
+            {"yaml", "application*.yaml"}
+    };
+
+    private final PathMatchingResourcePatternResolver resolver;
+    private final EnvPrinterProperties properties;
+    private final List<String> basePackages;
+    private final EnvPrinterMetrics metrics;
+    private final Supplier<EnvPropertyGraph> propertyGraphFactory;
+    private final Class<?> applicationClass;
+    private volatile EnvPropertyGraph propertyGraph;
 
-    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    public EnvUsageScanner() {
+        this(new EnvPrinterProperties());
+    }
+
+    public EnvUsageScanner(EnvPrinterProperties properties) {
+        this(properties, List.of());
+    }
+
+    /**
+     * Creates a scanner that falls back to the given packages for class scanning
+     * when {@code env.printer.scan.packages} is not set.
+     *
+     * @param properties the configuration properties
+     * @param basePackages the application's base packages, usually the auto-configuration packages
+     */
+    public EnvUsageScanner(EnvPrinterProperties properties, List<String> basePackages) {
+        this(properties, basePackages, null);
+    }
+
+    /**
+     * Creates a scanner that resolves resources and classes through the given class loader.
+     *
+     * @param properties the configuration properties
+     * @param basePackages the application's base packages, usually the auto-configuration packages
+     * @param classLoader the class loader to scan, or {@code null} for the default class loader
+     */
+    public EnvUsageScanner(EnvPrinterProperties properties, List<String> basePackages, ClassLoader classLoader) {
+        this(properties, basePackages, classLoader, EnvPrinterMetrics.NOOP);
+    }
+
+    /**
+     * Creates a scanner that reports the duration, resources and bytes of each scan phase.
+     *
+     * @param properties the configuration properties
+     * @param basePackages the application's base packages, usually the auto-configuration packages
+     * @param classLoader the class loader to scan, or {@code null} for the default class loader
+     * @param metrics receives the scan measurements
+     */
+    public EnvUsageScanner(EnvPrinterProperties properties, List<String> basePackages, ClassLoader classLoader,
+                           EnvPrinterMetrics metrics) {
+        this(properties, basePackages, classLoader, metrics, null);
+    }
+
+    /**
+     * Creates a scanner that, with {@code env.printer.scan.environment-enabled}, resolves variable
+     * references from the property sources of the live environment instead of configuration files.
+     *
+     * @param properties the configuration properties
+     * @param basePackages the application's base packages, usually the auto-configuration packages
+     * @param classLoader the class loader to scan, or {@code null} for the default class loader
+     * @param metrics receives the scan measurements
+     * @param propertyGraphFactory builds the property graph of the live environment on each scan, or {@code null}
+     */
+    public EnvUsageScanner(EnvPrinterProperties properties, List<String> basePackages, ClassLoader classLoader,
+                           EnvPrinterMetrics metrics, Supplier<EnvPropertyGraph> propertyGraphFactory) {
+        this(properties, basePackages, classLoader, metrics, propertyGraphFactory, null);
+    }
+
+    /**
+     * Creates a scanner that, with {@code env.printer.scan.scope=application}, limits the scan to
+     * the roots of the application, including the code source of the given main class.
+     *
+     * @param properties the configuration properties
+     * @param basePackages the application's base packages, usually the auto-configuration packages
+     * @param classLoader the class loader to scan, or {@code null} for the default class loader
+     * @param metrics receives the scan measurements
+     * @param propertyGraphFactory builds the property graph of the live environment on each scan, or {@code null}
+     * @param applicationClass the main application class, or {@code null} if unknown
+     */
+    public EnvUsageScanner(EnvPrinterProperties properties, List<String> basePackages, ClassLoader classLoader,
+                           EnvPrinterMetrics metrics, Supplier<EnvPropertyGraph> propertyGraphFactory,
+                           Class<?> applicationClass) {
+        this.properties = properties;
+        this.basePackages = basePackages;
+        this.resolver = new PathMatchingResourcePatternResolver(classLoader);
+        this.metrics = metrics;
+        this.propertyGraphFactory = propertyGraphFactory;
+        this.applicationClass = applicationClass;
+    }
 
     /**
      * Scans the project to find all environment variables that are actually referenced.
-     * 
+     *
      * @return set of environment variable names used in the project
      */
     public Set<String> scanForUsedEnvVariables() {
+        Set<String> usedVars = scan();
+        if (isEnvironmentEnabled()) {
+            resolveEnvironment(usedVars);
+        }
+        metrics.recordDetectedVariables(usedVars.size());
+        return usedVars;
+    }
+
+    /**
+     * @return the property graph of the last scan, or {@code null} if the environment is not resolved
+     */
+    public EnvPropertyGraph getPropertyGraph() {
+        return propertyGraph;
+    }
+
+    private boolean isEnvironmentEnabled() {
+        return properties.getScan().isEnvironmentEnabled() && propertyGraphFactory != null;
+    }
+
+    /**
+     * Adds the variables of the live environment's property graph. The graph reflects the active
+     * profiles and current values, so it is rebuilt on every scan and never cached.
+     */
+    private void resolveEnvironment(Set<String> usedVars) {
+        long start = System.nanoTime();
+        try {
+            EnvPropertyGraph graph = propertyGraphFactory.get();
+            propertyGraph = graph;
+            usedVars.addAll(graph.getVariables());
+            metrics.recordScanPhase("environment", "property sources", System.nanoTime() - start,
+                    graph.getPropertyCount(), 0);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Resolved {} environment variables from {} properties", graph.getVariables().size(),
+                        graph.getPropertyCount());
+                graph.getBoundVariables().forEach((prefix, names) ->
+                        logger.debug("Environment variables bound to '{}': {}", prefix, names));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Error resolving environment variables from property sources: {}", e.getMessage());
+        }
+    }
+
+    private Set<String> scan() {
         Set<String> usedVars = new HashSet<>();
-        
+
+        if (properties.getScan().isIndexEnabled()) {
+            long start = System.nanoTime();
+            if (AotDetector.useGeneratedArtifacts() && loadIndex(EnvUsageIndex.AOT_LOCATION, usedVars) > 0) {
+                metrics.recordScanPhase("index", EnvUsageIndex.AOT_LOCATION, System.nanoTime() - start, 1, 0);
+                logger.debug("Loaded {} environment variables detected during AOT processing", usedVars.size());
+                return usedVars;
+            }
+            int indexes = loadIndex(EnvUsageIndex.LOCATION, usedVars);
+            if (indexes > 0) {
+                metrics.recordScanPhase("index", EnvUsageIndex.LOCATION, System.nanoTime() - start, indexes, 0);
+                logger.debug("Loaded {} environment variables from build-time index", usedVars.size());
+                return usedVars;
+            }
+        }
+
+        EnvScanCache cache = null;
+        String fingerprint = null;
+        EnvScanCache.Contents cached = EnvScanCache.Contents.EMPTY;
+        if (properties.getScan().isCacheEnabled()) {
+            cache = EnvScanCache.create(properties.getScan().getCacheDirectory(), resolver.getClassLoader());
+            fingerprint = EnvScanCache.fingerprint(resolver.getClassLoader(), scanSettings());
+            cached = cache.load();
+            boolean hit = cached.matches(fingerprint);
+            metrics.recordCacheLookup("scan", hit);
+            if (hit) {
+                for (EnvScanCache.Unit unit : cached.getUnits().values()) {
+                    usedVars.addAll(unit.getNames());
+                }
+                logger.debug("Loaded {} environment variables from scan cache {}", usedVars.size(), cache.getFile());
+                return usedVars;
+            }
+        }
+
+        Map<String, EnvScanCache.Unit> units = new LinkedHashMap<>();
         try {
-            // Scan application.properties files
-            scanConfigFiles("classpath*:application*.properties", usedVars);
-            
-            // Scan application.yml files
-            scanConfigFiles("classpath*:application*.yml", usedVars);
-            scanConfigFiles("classpath*:application*.yaml", usedVars);
-            
-            // Scan Java source files (if available in classpath)
-            scanJavaFiles(usedVars);
-            
+            boolean stamped = cache != null;
+            ApplicationRoots roots = applicationRoots();
+
+            // Scan application.properties and application.yml files, unless the live environment is resolved instead
+            if (!isEnvironmentEnabled()) {
+                scanConfigFiles(units, cached, stamped, roots);
+            }
+
+            // Scan compiled classes of the application packages
+            if (properties.getScan().isClassesEnabled()) {
+                scanClassFiles(units, cached, stamped, roots);
+            }
+
+            for (EnvScanCache.Unit unit : units.values()) {
+                usedVars.addAll(unit.getNames());
+            }
             logger.debug("Found {} environment variables in use across the project", usedVars.size());
-            
+
+            if (cache != null) {
+                cache.store(fingerprint, units);
+            }
         } catch (Exception e) {
             logger.warn("Error scanning project for environment variable usage: {}", e.getMessage());
+            for (EnvScanCache.Unit unit : units.values()) {
+                usedVars.addAll(unit.getNames());
+            }
         }
-        
+
         return usedVars;
     }
 
     /**
-     * Scans configuration files for environment variable references.
+     * Loads variable names from every index at the given location on the classpath.
+     *
+     * @return the number of indexes found
      */
-    private void scanConfigFiles(String locationPattern, Set<String> usedVars) {
+    private int loadIndex(String location, Set<String> usedVars) {
+        ClassLoader classLoader = resolver.getClassLoader();
+        if (classLoader == null) {
+            return 0;
+        }
+        int found = 0;
         try {
-            Resource[] resources = resolver.getResources(locationPattern);
-            for (Resource resource : resources) {
-                if (resource.exists() && resource.isReadable()) {
-                    scanResource(resource, PROPERTY_PLACEHOLDER_PATTERN, usedVars);
+            Enumeration<URL> indexes = classLoader.getResources(location);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                try (InputStream in = index.openStream()) {
+                    EnvUsageIndex.read(in, usedVars);
+                    found++;
                 }
             }
         } catch (IOException e) {
-            logger.debug("Could not scan pattern {}: {}", locationPattern, e.getMessage());
+            logger.debug("Could not read index {}, falling back to scanning: {}", location, e.getMessage());
+            usedVars.clear();
+            return 0;
+        }
+        return found;
+    }
+
+    /**
+     * Scans configuration files for environment variable references, reusing cached results
+     * of files whose stamp is unchanged.
+     *
+     * <p>The location patterns are resolved and their resources read concurrently on a bounded
+     * executor. Each task returns its own result, and the results are merged in pattern and
+     * classpath order, so the units are the same as those of a sequential scan. Tasks borrow a
+     * {@link ResourceReader} from a pool, which holds no more readers than tasks ever ran at once,
+     * so virtual threads do not each allocate a buffer.</p>
+     *
+     * @param roots the application roots to search, or {@code null} for the whole classpath
+     */
+    private void scanConfigFiles(Map<String, EnvScanCache.Unit> units, EnvScanCache.Contents cached, boolean stamped,
+                                 ApplicationRoots roots) {
+        ExecutorService executor = configExecutor();
+        Queue<ResourceReader> readers = new ConcurrentLinkedQueue<>();
+        try {
+            List<Future<Resource[]>> resolved = new ArrayList<>(CONFIG_PATTERNS.length);
+            for (String[] pattern : CONFIG_PATTERNS) {
+                resolved.add(submit(executor, () -> resolve(pattern[1], roots)));
+            }
+            List<List<Future<ConfigFile>>> phases = new ArrayList<>(CONFIG_PATTERNS.length);
+            for (int i = 0; i < CONFIG_PATTERNS.length; i++) {
+                String kind = CONFIG_PATTERNS[i][0];
+                List<Future<ConfigFile>> files = new ArrayList<>();
+                for (Resource resource : join(resolved.get(i))) {
+                    files.add(submit(executor, () -> scanConfigFile(kind, resource, cached, stamped, readers)));
+                }
+                phases.add(files);
+            }
+
+            int totalResources = 0;
+            long totalBytes = 0;
+            long totalNanos = 0;
+            for (int i = 0; i < CONFIG_PATTERNS.length; i++) {
+                int resources = 0;
+                long bytes = 0;
+                long nanos = 0;
+                for (Future<ConfigFile> future : phases.get(i)) {
+                    ConfigFile file = join(future);
+                    if (file != null) {
+                        units.put(file.key, file.unit);
+                        resources += file.scanned ? 1 : 0;
+                        bytes += file.bytes;
+                        nanos += file.nanos;
+                    }
+                }
+                String location = roots != null ? CONFIG_PATTERNS[i][1] : "classpath*:" + CONFIG_PATTERNS[i][1];
+                metrics.recordScanPhase(CONFIG_PATTERNS[i][0], location, nanos, resources, bytes);
+                totalResources += resources;
+                totalBytes += bytes;
+                totalNanos += nanos;
+            }
+            logThroughput(totalResources, totalBytes, totalNanos);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
     }
 
     /**
-     * Scans Java files for System.getenv() and @Value annotations.
+     * Resolves a file name pattern in every classpath root, or only in the application roots.
      */
-    private void scanJavaFiles(Set<String> usedVars) {
+    private Resource[] resolve(String pattern, ApplicationRoots roots) {
+        if (roots == null) {
+            return resolve("classpath*:" + pattern);
+        }
+        List<Resource> resources = new ArrayList<>();
+        for (String root : roots.getRoots()) {
+            resources.addAll(List.of(resolve(root + pattern)));
+        }
+        return resources.toArray(new Resource[0]);
+    }
+
+    private Resource[] resolve(String locationPattern) {
         try {
-            Resource[] resources = resolver.getResources("classpath*:**/*.class");
-            // Note: Scanning compiled classes is limited. This is a best-effort approach.
-            // In a real deployment, source files might not be available.
-            logger.debug("Java class scanning is limited in compiled environment");
+            return resolver.getResources(locationPattern);
         } catch (IOException e) {
-            logger.debug("Could not scan Java files: {}", e.getMessage());
+            logger.debug("Could not scan pattern {}: {}", locationPattern, e.getMessage());
+            return new Resource[0];
         }
     }
 
     /**
-     * Reads a resource and extracts environment variable names using the given pattern.
+     * Finds the application roots when the scan is scoped to the application.
+     *
+     * @return the roots, or {@code null} to scan the whole classpath
      */
-    private void scanResource(Resource resource, Pattern pattern, Set<String> usedVars) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = pattern.matcher(line);
-                while (matcher.find()) {
-                    String varName = matcher.group(1).trim();
-                    // Trim any prefixes like "env." to get the actual env var name
-                    varName = trimEnvVarName(varName);
-                    // Only add if it looks like an environment variable (uppercase with underscores)
-                    if (isLikelyEnvVar(varName)) {
-                        usedVars.add(varName);
-                        logger.trace("Found environment variable reference: {}", varName);
-                    }
-                }
-                
-                // Also check for @Value annotations and System.getenv
-                Matcher valueAnnotationMatcher = VALUE_ANNOTATION_PATTERN.matcher(line);
-                while (valueAnnotationMatcher.find()) {
-                    String varName = valueAnnotationMatcher.group(1).trim();
-                    varName = trimEnvVarName(varName);
-                    if (isLikelyEnvVar(varName)) {
-                        usedVars.add(varName);
-                        logger.trace("Found @Value environment variable: {}", varName);
-                    }
-                }
-                
-                Matcher getenvMatcher = GETENV_PATTERN.matcher(line);
-                while (getenvMatcher.find()) {
-                    String varName = getenvMatcher.group(1).trim();
-                    varName = trimEnvVarName(varName);
-                    usedVars.add(varName);
-                    logger.trace("Found System.getenv reference: {}", varName);
-                }
+    private ApplicationRoots applicationRoots() {
+        if (properties.getScan().getScope() != EnvPrinterProperties.ScanScope.APPLICATION) {
+            return null;
+        }
+        ApplicationRoots roots = ApplicationRoots.find(resolver.getClassLoader(), applicationClass,
+                properties.getScan().getIncludeJars());
+        logger.debug("Scanning application roots {}", roots.getRoots());
+        return roots;
+    }
+
+    /**
+     * Scans one configuration file with a reader borrowed from the pool, or reuses its cached unit.
+     *
+     * @return the result, or {@code null} if the resource does not exist or cannot be read
+     */
+    private ConfigFile scanConfigFile(String kind, Resource resource, EnvScanCache.Contents cached, boolean stamped,
+                                      Queue<ResourceReader> readers) throws IOException {
+        if (!resource.exists() || !resource.isReadable()) {
+            return null;
+        }
+        String key = resource.getURL().toString();
+        String stamp = stamped ? EnvScanCache.stamp(resource) : null;
+        EnvScanCache.Unit previous = cached.get(key);
+        if (previous != null && previous.isCurrent(stamp)) {
+            return new ConfigFile(key, previous, false, 0, 0);
+        }
+        long start = System.nanoTime();
+        EnvPrinterEvents.ResourceScan event = EnvPrinterEvents.beginResourceScan();
+        Set<String> names = new HashSet<>();
+        ResourceReader reader = readers.poll();
+        if (reader == null) {
+            reader = new ResourceReader();
+        }
+        long bytes;
+        try {
+            bytes = scanResource(resource, names, reader);
+        } finally {
+            readers.offer(reader);
+        }
+        if (bytes < 0) {
+            stamp = null;
+        }
+        EnvPrinterEvents.endResourceScan(event, kind, key, Math.max(bytes, 0), names.size());
+        return new ConfigFile(key, new EnvScanCache.Unit(stamp, names), true, Math.max(bytes, 0),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Creates the executor for configuration file scanning, bounded by {@code env.printer.scan.parallelism}.
+     * Its threads are virtual with {@code env.printer.scan.virtual-threads} on a runtime that supports them.
+     *
+     * @return the executor, or {@code null} to run the tasks on the calling thread
+     */
+    private ExecutorService configExecutor() {
+        int parallelism = properties.getScan().getParallelism();
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadFactory factory = properties.getScan().isVirtualThreads() ? virtualThreadFactory() : null;
+        if (factory == null && threads == 1) {
+            return null;
+        }
+        if (factory == null) {
+            AtomicInteger count = new AtomicInteger();
+            factory = task -> {
+                Thread thread = new Thread(task, "env-printer-scan-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * Returns a factory of virtual threads, looked up reflectively since the library targets Java 17.
+     *
+     * @return the factory, or {@code null} if virtual threads are not available
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "env-printer-scan-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Virtual threads are not available, scanning on platform threads: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static <T> Future<T> submit(ExecutorService executor, Callable<T> task) {
+        if (executor != null) {
+            return executor.submit(task);
+        }
+        FutureTask<T> future = new FutureTask<>(task);
+        future.run();
+        return future;
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning configuration files", e);
+        }
+    }
+
+    private static void logThroughput(int resources, long bytes, long nanos) {
+        if (resources > 0 && logger.isDebugEnabled()) {
+            long millis = nanos / 1_000_000;
+            double megabytesPerSecond = nanos > 0 ? (bytes / (1024.0 * 1024.0)) / (nanos / 1e9) : 0;
+            logger.debug("Scanned {} configuration files ({} bytes) in {} ms across threads, {} MB/s per thread",
+                    resources, bytes, millis, String.format("%.1f", megabytesPerSecond));
+        }
+    }
+
+    /**
+     * Scans compiled classes for System.getenv() calls and @Value annotations. Class roots
+     * whose stamp is unchanged reuse their cached result.
+     *
+     * @param applicationRoots the application roots to keep, or {@code null} for the whole classpath
+     */
+    private void scanClassFiles(Map<String, EnvScanCache.Unit> units, EnvScanCache.Contents cached, boolean stamped,
+                                ApplicationRoots applicationRoots) {
+        Collection<String> scanPackages = scanPackages();
+        ClassFileScanner classScanner = new ClassFileScanner(resolver.getClassLoader(), properties.getScan().getParallelism());
+        long start = System.nanoTime();
+        Map<String, URL> roots = classScanner.findRoots(scanPackages);
+        if (applicationRoots != null) {
+            roots.keySet().removeIf(root -> !applicationRoots.contains(root));
+        }
+        Map<String, URL> changed = new LinkedHashMap<>();
+        Map<String, String> stamps = new HashMap<>();
+        for (Map.Entry<String, URL> root : roots.entrySet()) {
+            String stamp = stamped ? EnvScanCache.stamp(root.getValue()) : null;
+            EnvScanCache.Unit previous = cached.get(root.getKey());
+            if (previous != null && previous.isCurrent(stamp)) {
+                units.put(root.getKey(), previous);
+            } else {
+                changed.put(root.getKey(), root.getValue());
+                stamps.put(root.getKey(), stamp);
             }
+        }
+        int found = 0;
+        for (Map.Entry<String, Set<String>> result : classScanner.scanRoots(changed).entrySet()) {
+            units.put(result.getKey(), new EnvScanCache.Unit(stamps.get(result.getKey()), result.getValue()));
+            found += result.getValue().size();
+        }
+        long nanos = System.nanoTime() - start;
+        String location = scanPackages.isEmpty() ? "classpath directories" : String.join(",", scanPackages);
+        metrics.recordScanPhase("classes", location, nanos, classScanner.getClassesRead(), classScanner.getBytesRead());
+        logger.debug("Class scan of {} rescanned {} of {} roots and found {} environment variables in {} ms",
+                location, changed.size(), roots.size(), found, nanos / 1_000_000);
+    }
+
+    private Collection<String> scanPackages() {
+        List<String> packages = properties.getScan().getPackages();
+        return packages.isEmpty() ? basePackages : packages;
+    }
+
+    /**
+     * Describes the settings that affect the scan result, as part of the cache fingerprint.
+     */
+    private String scanSettings() {
+        return "classes=" + properties.getScan().isClassesEnabled() + ";packages=" + scanPackages()
+                + ";environment=" + isEnvironmentEnabled() + ";scope=" + properties.getScan().getScope()
+                + ";includeJars=" + properties.getScan().getIncludeJars();
+    }
+
+    /**
+     * Scans a resource as UTF-8 bytes and extracts environment variable names in a single pass.
+     *
+     * @return the number of bytes read, or -1 if the resource could not be read
+     */
+    private long scanResource(Resource resource, Set<String> usedVars, ResourceReader reader) {
+        try {
+            return reader.scan(resource, varName -> {
+                usedVars.add(varName);
+                logger.trace("Found environment variable reference: {}", varName);
+            });
         } catch (IOException e) {
             logger.debug("Error reading resource {}: {}", resource.getFilename(), e.getMessage());
+            return -1;
         }
     }
 
     /**
-     * Trims prefixes from variable names to get the actual environment variable name.
-     * For example, "env.DB_PASSWORD" becomes "DB_PASSWORD"
+     * Result of one configuration file task.
      */
-    private String trimEnvVarName(String varName) {
-        if (varName == null || varName.isEmpty()) {
-            return varName;
-        }
-        
-        // Remove common prefixes
-        String[] prefixes = {"env.", "environment.", "sys.", "system."};
-        for (String prefix : prefixes) {
-            if (varName.startsWith(prefix)) {
-                return varName.substring(prefix.length());
-            }
+    private static final class ConfigFile {
+
+        private final String key;
+        private final EnvScanCache.Unit unit;
+        private final boolean scanned;
+        private final long bytes;
+        private final long nanos;
+
+        ConfigFile(String key, EnvScanCache.Unit unit, boolean scanned, long bytes, long nanos) {
+            this.key = key;
+            this.unit = unit;
+            this.scanned = scanned;
+            this.bytes = bytes;
+            this.nanos = nanos;
         }
-        
-        return varName;
     }
 
     /**
-     * Checks if a variable name looks like an environment variable.
-     * Environment variables are typically UPPERCASE_WITH_UNDERSCORES.
+     * Reads resources as raw UTF-8 bytes for the extractor, without decoding them into characters.
+     * File system resources are memory-mapped; other resources, such as jar entries, are streamed
+     * through a direct buffer reused across the resources read with the reader. Both are scanned in
+     * chunks ending at a line break, since references never span lines.
      */
-    private boolean isLikelyEnvVar(String varName) {
-        if (varName == null || varName.isEmpty()) {
-            return false;
+    private static final class ResourceReader {
+
+        private static final long MAP_CHUNK = 64L * 1024 * 1024;
+
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        long scan(Resource resource, Consumer<String> sink) throws IOException {
+            if (resource.isFile()) {
+                return scanFile(resource.getFile().toPath(), sink);
+            }
+            try (InputStream in = resource.getInputStream();
+                 ReadableByteChannel channel = Channels.newChannel(in)) {
+                return scanStream(channel, sink);
+            }
+        }
+
+        private long scanFile(Path path, Consumer<String> sink) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long offset = 0;
+                while (offset < size) {
+                    int length = (int) Math.min(MAP_CHUNK, size - offset);
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                    if (offset + length < size) {
+                        int newline = lastNewline(mapped, length);
+                        if (newline >= 0) {
+                            length = newline + 1;
+                        }
+                    }
+                    mapped.limit(length);
+                    EnvReferenceExtractor.extract(mapped, sink);
+                    offset += length;
+                }
+                return size;
+            }
+        }
+
+        private long scanStream(ReadableByteChannel channel, Consumer<String> sink) throws IOException {
+            buffer.clear();
+            long total = 0;
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                total += read;
+                if (buffer.hasRemaining()) {
+                    continue;
+                }
+                buffer.flip();
+                int limit = buffer.limit();
+                int newline = lastNewline(buffer, limit);
+                if (newline < 0) {
+                    // A single line fills the buffer: grow it and keep reading
+                    ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                    larger.put(buffer);
+                    buffer = larger;
+                    continue;
+                }
+                buffer.limit(newline + 1);
+                EnvReferenceExtractor.extract(buffer, sink);
+                buffer.limit(limit).position(newline + 1);
+                buffer.compact();
+            }
+            buffer.flip();
+            EnvReferenceExtractor.extract(buffer, sink);
+            return total;
+        }
+
+        private static int lastNewline(ByteBuffer buf, int end) {
+            for (int i = end - 1; i >= 0; i--) {
+                if (buf.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
         }
-        // Check if it's mostly uppercase or contains underscores (common env var pattern)
-        return varName.matches("^[A-Z][A-Z0-9_]*$") || varName.contains("_");
     }
 }
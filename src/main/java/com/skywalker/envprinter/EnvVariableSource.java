@@ -0,0 +1,37 @@
+package com.skywalker.envprinter;
+
+import java.util.Map;
+
+/**
+ * Source of the environment variables shown by the starter.
+ * Defaults to {@link System#getenv()}; declare a bean of this type to supply a different
+ * environment, for example a fixed map for deterministic tests and benchmarks.
+ *
+ * <p>{@link #getVariables()} should return the same map instance while the variables are unchanged,
+ * since the filtered snapshot is only rebuilt when a different instance is returned.</p>
+ */
+@FunctionalInterface
+public interface EnvVariableSource {
+
+    /**
+     * Source backed by the process environment.
+     */
+    EnvVariableSource SYSTEM = System::getenv;
+
+    /**
+     * Returns the current environment variables.
+     *
+     * @return an unmodifiable map of variable names to values
+     */
+    Map<String, String> getVariables();
+
+    /**
+     * Re-reads variables the source caches, such as values read from files.
+     * Called before periodic change checks. The default does nothing.
+     *
+     * @return true if the variables changed
+     */
+    default boolean refresh() {
+        return false;
+    }
+}
@@ -0,0 +1,193 @@
+package com.skywalker.envprinter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.env.ConfigTreePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EnvVariableSource} that adds variables from mounted files to another source: the entries
+ * of config trees, such as Kubernetes secrets and config maps imported with
+ * {@code spring.config.import=configtree:...}, and {@code KEY=VALUE} lines of {@code .env} files.
+ * Variables of the wrapped source take precedence over config tree entries, which take precedence
+ * over {@code .env} files.
+ *
+ * <p>Files are read on construction and on {@link #refresh()}, never on {@link #getVariables()},
+ * which returns the same map instance until something changes. A refresh builds the new values
+ * completely before publishing them, so readers never see a partial update.</p>
+ */
+final class FileVariableSource implements EnvVariableSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileVariableSource.class);
+
+    private final EnvVariableSource delegate;
+    private final List<Path> configTrees;
+    private final List<Path> dotenvFiles;
+    private volatile Map<String, String> fileValues = Map.of();
+    private volatile Merged merged;
+
+    FileVariableSource(EnvVariableSource delegate, List<Path> configTrees, List<Path> dotenvFiles) {
+        this.delegate = delegate;
+        this.configTrees = List.copyOf(configTrees);
+        this.dotenvFiles = List.copyOf(dotenvFiles);
+        refresh();
+    }
+
+    /**
+     * Finds the directories of the config tree property sources in the environment.
+     *
+     * @param environment the application environment
+     * @return the config tree directories, in precedence order
+     */
+    static List<Path> findConfigTrees(ConfigurableEnvironment environment) {
+        List<Path> trees = new ArrayList<>();
+        for (PropertySource<?> propertySource : environment.getPropertySources()) {
+            if (propertySource instanceof ConfigTreePropertySource && propertySource.getSource() instanceof Path path) {
+                trees.add(path);
+            }
+        }
+        return trees;
+    }
+
+    List<Path> getConfigTrees() {
+        return configTrees;
+    }
+
+    List<Path> getDotenvFiles() {
+        return dotenvFiles;
+    }
+
+    @Override
+    public Map<String, String> getVariables() {
+        Map<String, String> base = delegate.getVariables();
+        Map<String, String> files = fileValues;
+        Merged current = merged;
+        if (current == null || current.base != base || current.files != files) {
+            current = new Merged(base, files);
+            merged = current;
+        }
+        return current.variables;
+    }
+
+    /**
+     * Re-reads every config tree and {@code .env} file. The values are only replaced when an entry changed.
+     *
+     * @return true if the variables changed
+     */
+    @Override
+    public synchronized boolean refresh() {
+        boolean delegateChanged = delegate.refresh();
+        Map<String, String> values = new HashMap<>();
+        for (Path tree : configTrees) {
+            readTree(tree, values);
+        }
+        for (Path dotenv : dotenvFiles) {
+            readDotenv(dotenv, values);
+        }
+        if (values.equals(fileValues)) {
+            return delegateChanged;
+        }
+        fileValues = Collections.unmodifiableMap(values);
+        return true;
+    }
+
+    private static void readTree(Path tree, Map<String, String> values) {
+        try {
+            ConfigTreePropertySource source = new ConfigTreePropertySource("env-printer", tree,
+                    ConfigTreePropertySource.Option.AUTO_TRIM_TRAILING_NEW_LINE);
+            for (String name : source.getPropertyNames()) {
+                Object value = source.getProperty(name);
+                // Earlier sources take precedence, like in the environment
+                values.putIfAbsent(name, value != null ? value.toString() : null);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Could not read config tree {}: {}", tree, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads {@code KEY=VALUE} lines, ignoring blank lines, {@code #} comments and a leading {@code export}.
+     * Values may be single or double quoted; double-quoted values support {@code \n}, {@code \"} and
+     * {@code \\} escapes, and unquoted values end at a {@code " #"} comment. Within a file the
+     * last definition of a name wins; names already present in {@code values} are kept.
+     */
+    static void readDotenv(Path file, Map<String, String> values) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        Map<String, String> entries = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                if (line.startsWith("export ")) {
+                    line = line.substring("export ".length()).trim();
+                }
+                int equals = line.indexOf('=');
+                if (equals <= 0) {
+                    continue;
+                }
+                String name = line.substring(0, equals).trim();
+                entries.put(name, dotenvValue(line.substring(equals + 1).trim()));
+            }
+        } catch (IOException e) {
+            logger.debug("Could not read .env file {}: {}", file, e.getMessage());
+            return;
+        }
+        entries.forEach(values::putIfAbsent);
+    }
+
+    private static String dotenvValue(String raw) {
+        if (raw.length() >= 2 && raw.charAt(0) == '\'' && raw.charAt(raw.length() - 1) == '\'') {
+            return raw.substring(1, raw.length() - 1);
+        }
+        if (raw.length() >= 2 && raw.charAt(0) == '"' && raw.charAt(raw.length() - 1) == '"') {
+            StringBuilder value = new StringBuilder(raw.length());
+            for (int i = 1; i < raw.length() - 1; i++) {
+                char c = raw.charAt(i);
+                if (c == '\\' && i + 1 < raw.length() - 1) {
+                    char next = raw.charAt(++i);
+                    value.append(next == 'n' ? '\n' : next);
+                } else {
+                    value.append(c);
+                }
+            }
+            return value.toString();
+        }
+        int comment = raw.indexOf(" #");
+        return comment >= 0 ? raw.substring(0, comment).trim() : raw;
+    }
+
+    /**
+     * Both inputs of a merged map, compared by identity to detect changes cheaply.
+     */
+    private static final class Merged {
+
+        private final Map<String, String> base;
+        private final Map<String, String> files;
+        private final Map<String, String> variables;
+
+        Merged(Map<String, String> base, Map<String, String> files) {
+            this.base = base;
+            this.files = files;
+            Map<String, String> variables = new HashMap<>(files);
+            variables.putAll(base);
+            this.variables = Collections.unmodifiableMap(variables);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.skywalker.envprinter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transport that reads the digest and {@code names} query of remote endpoints with the JDK HTTP client.
+ */
+final class HttpSnapshotTransport implements EnvSnapshotTransport {
+
+    /**
+     * Longest {@code names} parameter sent in one request, well below common URL length limits;
+     * longer lists are split across requests.
+     */
+    private static final int MAX_NAMES_LENGTH = 2000;
+
+    private final HttpClient client;
+    private final Duration timeout;
+
+    HttpSnapshotTransport(HttpClient client, Duration timeout) {
+        this.client = client;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public EnvDigest fetchDigest(String instance) throws IOException {
+        byte[] body = get(instance, withoutSlash(instance) + "/digest");
+        try {
+            return EnvDigest.parse(body);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid digest from " + instance + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, String> fetchEntries(String instance, Collection<String> names) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        StringBuilder batch = new StringBuilder();
+        for (String name : names) {
+            if (batch.length() > 0 && batch.length() + name.length() >= MAX_NAMES_LENGTH) {
+                fetchBatch(instance, batch.toString(), entries);
+                batch.setLength(0);
+            }
+            if (batch.length() > 0) {
+                batch.append(',');
+            }
+            batch.append(name);
+        }
+        if (batch.length() > 0) {
+            fetchBatch(instance, batch.toString(), entries);
+        }
+        return entries;
+    }
+
+    private void fetchBatch(String instance, String names, Map<String, String> entries) throws IOException {
+        byte[] body = get(instance, withoutSlash(instance) + "?names=" + URLEncoder.encode(names, StandardCharsets.UTF_8));
+        try {
+            for (Map.Entry<String, Object> entry : EnvJsonReader.readObject(new String(body, StandardCharsets.UTF_8)).entrySet()) {
+                Object value = entry.getValue();
+                entries.put(entry.getKey(), value != null ? value.toString() : null);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid entries from " + instance + ": " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] get(String instance, String uri) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + instance);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + uri);
+        }
+        return response.body();
+    }
+
+    private static String withoutSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,47 @@
+package com.skywalker.envprinter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Transport over filter services of the same JVM, reading their snapshots directly.
+ */
+final class LocalSnapshotTransport implements EnvSnapshotTransport {
+
+    private final Map<String, EnvFilterService> instances;
+
+    LocalSnapshotTransport(Map<String, EnvFilterService> instances) {
+        this.instances = Map.copyOf(instances);
+    }
+
+    @Override
+    public EnvDigest fetchDigest(String instance) throws IOException {
+        return snapshot(instance).getDigest();
+    }
+
+    @Override
+    public Map<String, String> fetchEntries(String instance, Collection<String> names) throws IOException {
+        NavigableMap<String, String> view = snapshot(instance).getEndpointView();
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (String name : names) {
+            if (view.containsKey(name)) {
+                entries.put(name, view.get(name));
+            }
+        }
+        return entries;
+    }
+
+    private EnvSnapshot snapshot(String instance) throws IOException {
+        EnvFilterService filterService = instances.get(instance);
+        if (filterService == null) {
+            throw new IOException("Unknown instance " + instance);
+        }
+        if (filterService.isScanPending()) {
+            throw new IOException("Scan pending on " + instance);
+        }
+        return filterService.getSnapshot();
+    }
+}
@@ -0,0 +1,114 @@
+package com.skywalker.envprinter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link EnvPrinterMetrics} backed by a Micrometer {@link MeterRegistry}.
+ *
+ * <p>Meters:</p>
+ * <ul>
+ *     <li>{@code envprinter.scan.duration}, {@code envprinter.scan.resources} and
+ *     {@code envprinter.scan.bytes}, tagged with {@code phase} and {@code location}</li>
+ *     <li>{@code envprinter.scan.variables}, the number of variables detected by the last scan</li>
+ *     <li>{@code envprinter.cache.lookups}, tagged with {@code cache} and {@code result} ({@code hit} or {@code miss})</li>
+ *     <li>{@code envprinter.snapshot.rebuilds}</li>
+ *     <li>{@code envprinter.endpoint.requests}, tagged with {@code endpoint} and {@code outcome}</li>
+ * </ul>
+ *
+ * <p>Meters on the request path are registered once and cached, so recording costs a lookup
+ * and an increment.</p>
+ */
+final class MicrometerEnvPrinterMetrics implements EnvPrinterMetrics {
+
+    private final MeterRegistry registry;
+    private final AtomicInteger detectedVariables = new AtomicInteger();
+    private final Counter snapshotRebuilds;
+    private final Map<String, Counter[]> cacheLookups = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Timer>> endpointRequests = new ConcurrentHashMap<>();
+
+    MicrometerEnvPrinterMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("envprinter.scan.variables", detectedVariables, AtomicInteger::get)
+                .description("Environment variables detected by the last project scan")
+                .register(registry);
+        this.snapshotRebuilds = Counter.builder("envprinter.snapshot.rebuilds")
+                .description("Rebuilds of the filtered environment snapshot")
+                .register(registry);
+    }
+
+    @Override
+    public void recordScanPhase(String phase, String location, long nanos, long resources, long bytes) {
+        Timer.builder("envprinter.scan.duration")
+                .description("Time spent in a project scan phase")
+                .tag("phase", phase)
+                .tag("location", location)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("envprinter.scan.resources")
+                .description("Resources read by a project scan phase")
+                .tag("phase", phase)
+                .tag("location", location)
+                .register(registry)
+                .increment(resources);
+        Counter.builder("envprinter.scan.bytes")
+                .description("Bytes read by a project scan phase")
+                .baseUnit("bytes")
+                .tag("phase", phase)
+                .tag("location", location)
+                .register(registry)
+                .increment(bytes);
+    }
+
+    @Override
+    public void recordDetectedVariables(int count) {
+        detectedVariables.set(count);
+    }
+
+    @Override
+    public void recordCacheLookup(String cache, boolean hit) {
+        Counter[] counters = cacheLookups.get(cache);
+        if (counters == null) {
+            counters = cacheLookups.computeIfAbsent(cache, key -> new Counter[] {
+                    cacheLookupCounter(key, "miss"), cacheLookupCounter(key, "hit")});
+        }
+        counters[hit ? 1 : 0].increment();
+    }
+
+    private Counter cacheLookupCounter(String cache, String result) {
+        return Counter.builder("envprinter.cache.lookups")
+                .description("Lookups in the scan and snapshot caches")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public void recordSnapshotRebuild() {
+        snapshotRebuilds.increment();
+    }
+
+    @Override
+    public void recordEndpointRequest(String endpoint, String outcome, long nanos) {
+        Map<String, Timer> timers = endpointRequests.get(endpoint);
+        if (timers == null) {
+            timers = endpointRequests.computeIfAbsent(endpoint, key -> new ConcurrentHashMap<>());
+        }
+        Timer timer = timers.get(outcome);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(outcome, key -> Timer.builder("envprinter.endpoint.requests")
+                    .description("Requests to the environment endpoints")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", key)
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,156 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicationRootsTest {
+
+    /**
+     * Spring Boot's nested jar URLs, as its launcher reports them for an executable jar.
+     */
+    private static final String APP = "jar:nested:/srv/app.jar/!";
+    private static final String CLASSES = APP + "BOOT-INF/classes/!/";
+    private static final String SHARED = APP + "BOOT-INF/lib/shared-config-1.0.jar!/";
+    private static final String LIBRARY = APP + "BOOT-INF/lib/spring-core-6.1.5.jar!/";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsDirectoriesAndIncludedJarsOfAClassLoader() throws IOException {
+        Path classes = Files.createDirectory(directory.resolve("classes"));
+        Files.writeString(classes.resolve("application.properties"), "url=${DB_URL}");
+        Path shared = jar("shared-config-1.0.jar", "shared.properties");
+        Path library = jar("library-2.0.jar", "library.properties");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {classes.toUri().toURL(),
+                shared.toUri().toURL(), library.toUri().toURL()}, null)) {
+            ApplicationRoots roots = ApplicationRoots.find(classLoader, null, List.of("shared-config-*.jar"));
+
+            assertThat(roots.getRoots()).containsExactly(classes.toUri().toURL().toString(),
+                    "jar:" + shared.toUri().toURL() + "!/");
+            assertThat(roots.contains(resource(classLoader, "application.properties"))).isTrue();
+            assertThat(roots.contains(resource(classLoader, "shared.properties"))).isTrue();
+            assertThat(roots.contains(resource(classLoader, "library.properties"))).isFalse();
+            assertThat(ApplicationRoots.find(classLoader, null, List.of()).getRoots())
+                    .containsExactly(classes.toUri().toURL().toString());
+        }
+    }
+
+    @Test
+    void putsTheCodeSourceOfTheApplicationClassFirst() throws IOException {
+        Path classes = Files.createDirectory(directory.resolve("classes"));
+        String codeSource = ApplicationRootsTest.class.getProtectionDomain().getCodeSource().getLocation().toString();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, null)) {
+            ApplicationRoots roots = ApplicationRoots.find(classLoader, ApplicationRootsTest.class, List.of());
+
+            assertThat(roots.getRoots()).containsExactly(codeSource.endsWith("/") ? codeSource : codeSource + "/",
+                    classes.toUri().toURL().toString());
+        }
+    }
+
+    @Test
+    void findsBootClassesAndIncludedJarsOfAnExecutableJar() {
+        ClassLoader classLoader = new NestedJarClassLoader(Map.of(
+                "", List.of(CLASSES),
+                "META-INF/MANIFEST.MF", List.of(CLASSES + "META-INF/MANIFEST.MF", SHARED + "META-INF/MANIFEST.MF",
+                        LIBRARY + "META-INF/MANIFEST.MF")));
+
+        ApplicationRoots roots = ApplicationRoots.find(classLoader, null, List.of("shared-config-*.jar"));
+
+        assertThat(roots.getRoots()).containsExactly(CLASSES, SHARED);
+        assertThat(roots.contains(CLASSES + "application.yml")).isTrue();
+        assertThat(roots.contains(CLASSES + "com/example/App.class")).isTrue();
+        assertThat(roots.contains(SHARED + "config/shared.properties")).isTrue();
+        assertThat(roots.contains(LIBRARY + "META-INF/spring.factories")).isFalse();
+        // Not a prefix match on the jar name alone
+        assertThat(roots.contains(APP + "BOOT-INF/lib/shared-config-1.0.jar.bak!/x.properties")).isFalse();
+    }
+
+    @Test
+    void namesTheInnermostJar() {
+        assertThat(ApplicationRoots.jarName(SHARED)).isEqualTo("shared-config-1.0.jar");
+        assertThat(ApplicationRoots.jarName(LIBRARY)).isEqualTo("spring-core-6.1.5.jar");
+        assertThat(ApplicationRoots.jarName(CLASSES)).isEqualTo("app.jar");
+        assertThat(ApplicationRoots.jarName("jar:file:/home/me/.m2/lib.jar!/")).isEqualTo("lib.jar");
+        assertThat(ApplicationRoots.jarName("jar:file:lib.jar!/")).isEqualTo("lib.jar");
+        assertThat(ApplicationRoots.jarName("jar:file:/C:/libs/lib.jar!/")).isEqualTo("lib.jar");
+        assertThat(ApplicationRoots.jarName("file:/srv/app/classes/")).isNull();
+    }
+
+    private Path jar(String name, String entry) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        Path jar = directory.resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar);
+             JarOutputStream jarOut = new JarOutputStream(out, manifest)) {
+            jarOut.putNextEntry(new JarEntry(entry));
+            jarOut.write("key=value".getBytes(StandardCharsets.UTF_8));
+            jarOut.closeEntry();
+        }
+        return jar;
+    }
+
+    private static String resource(ClassLoader classLoader, String name) {
+        URL url = classLoader.getResource(name);
+        assertThat(url).as(name).isNotNull();
+        return url.toString();
+    }
+
+    /**
+     * Reports fixed resource URLs, such as the {@code jar:nested:} URLs of an executable jar,
+     * whose protocol handler is only installed by the Spring Boot launcher.
+     */
+    private static final class NestedJarClassLoader extends ClassLoader {
+
+        private static final URLStreamHandler HANDLER = new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) throws IOException {
+                throw new IOException("Not readable: " + url);
+            }
+        };
+
+        private final Map<String, List<String>> resources;
+
+        NestedJarClassLoader(Map<String, List<String>> resources) {
+            super(null);
+            this.resources = resources;
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            List<URL> urls = new ArrayList<>();
+            for (String url : resources.getOrDefault(name, List.of())) {
+                try {
+                    urls.add(new URL(null, url, HANDLER));
+                } catch (MalformedURLException e) {
+                    throw new IOException(e);
+                }
+            }
+            return Collections.enumeration(urls);
+        }
+    }
+}
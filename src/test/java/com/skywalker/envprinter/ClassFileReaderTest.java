@@ -0,0 +1,169 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassFileReaderTest {
+
+    private final ClassFileReader reader = new ClassFileReader();
+
+    @Test
+    void findsGetenvCallsWithLiteralNames() throws IOException {
+        assertThat(read(GetenvCalls.class)).containsExactly("FIRST_VAR", "SECOND_VAR");
+    }
+
+    @Test
+    void ignoresGetenvCallsWithComputedNames() throws IOException {
+        assertThat(read(ComputedGetenv.class)).isEmpty();
+    }
+
+    @Test
+    void resolvesConstantsAfterEightByteEntries() throws IOException {
+        assertThat(read(WideConstants.class)).containsExactly("AFTER_WIDE_VAR");
+    }
+
+    @Test
+    void walksSwitchInstructions() throws IOException {
+        assertThat(read(Switches.class)).containsExactly("TABLE_VAR", "LOOKUP_VAR", "AFTER_SWITCH_VAR");
+    }
+
+    @Test
+    void findsValuePlaceholdersOnFieldsMethodsAndParameters() throws IOException {
+        assertThat(read(ValueAnnotations.class))
+                .containsExactlyInAnyOrder("FIELD_VAR", "OUTER_VAR", "INNER_VAR", "SETTER_VAR", "PARAMETER_VAR");
+    }
+
+    @Test
+    void acceptsClassesWithoutReferences() throws IOException {
+        List<String> names = new ArrayList<>();
+        byte[] bytes = bytes(NoReferences.class);
+
+        assertThat(reader.read(bytes, bytes.length, names::add)).isTrue();
+        assertThat(names).isEmpty();
+    }
+
+    @Test
+    void rejectsOtherContent() {
+        byte[] bytes = "not a class file".getBytes();
+
+        assertThat(reader.read(bytes, bytes.length, name -> { })).isFalse();
+    }
+
+    @Test
+    void rejectsTruncatedClassFiles() throws IOException {
+        byte[] bytes = bytes(GetenvCalls.class);
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+
+        assertThat(reader.read(truncated, truncated.length, name -> { })).isFalse();
+        // The reader stays usable after a malformed class
+        assertThat(read(GetenvCalls.class)).containsExactly("FIRST_VAR", "SECOND_VAR");
+    }
+
+    private List<String> read(Class<?> type) throws IOException {
+        List<String> names = new ArrayList<>();
+        byte[] bytes = bytes(type);
+        assertThat(reader.read(bytes, bytes.length, names::add)).isTrue();
+        return names;
+    }
+
+    private static byte[] bytes(Class<?> type) throws IOException {
+        String resource = type.getName().substring(type.getPackageName().length() + 1) + ".class";
+        try (InputStream in = type.getResourceAsStream(resource)) {
+            return in.readAllBytes();
+        }
+    }
+
+    static class GetenvCalls {
+
+        String first() {
+            return System.getenv("FIRST_VAR");
+        }
+
+        String second() {
+            return System.getenv(" SECOND_VAR ");
+        }
+    }
+
+    static class ComputedGetenv {
+
+        String read(String name) {
+            return System.getenv(name);
+        }
+
+        String readAll() {
+            return System.getenv().get("MAP_VAR");
+        }
+    }
+
+    static class WideConstants {
+
+        long big = 1L << 40;
+        double ratio = 1.2345;
+
+        String read() {
+            return big * ratio > 0 ? System.getenv("AFTER_WIDE_VAR") : null;
+        }
+    }
+
+    static class Switches {
+
+        String table(int value) {
+            switch (value) {
+                case 1:
+                    return System.getenv("TABLE_VAR");
+                case 2:
+                    return "two";
+                case 3:
+                    return "three";
+                default:
+                    break;
+            }
+            return null;
+        }
+
+        String lookup(int value) {
+            switch (value) {
+                case 10:
+                    return System.getenv("LOOKUP_VAR");
+                case 1000:
+                    return "thousand";
+                default:
+                    return System.getenv("AFTER_SWITCH_VAR");
+            }
+        }
+    }
+
+    static class ValueAnnotations {
+
+        @Value("${FIELD_VAR}")
+        String field;
+
+        @Value("${OUTER_VAR:${INNER_VAR}}")
+        String nested;
+
+        @Value("plain text")
+        String literal;
+
+        ValueAnnotations(@Value("${PARAMETER_VAR:default}") String parameter) {
+        }
+
+        @Value("${SETTER_VAR}")
+        void setSetter(String value) {
+        }
+    }
+
+    static class NoReferences {
+
+        String greeting() {
+            return "hello";
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactEnvMapTest {
+
+    private static final List<String> PROBES = List.of("", "A", "API_KEY", "B", "DB", "DB_URL", "DB_USER", "E",
+            "HOME", "LANG", "PATH", "Z");
+
+    private final TreeMap<String, String> expected = new TreeMap<>(Map.of(
+            "API_KEY", "key", "DB_URL", "jdbc:h2:mem", "DB_USER", "sa", "HOME", "/root", "PATH", "/bin"));
+    private final CompactEnvMap map = CompactEnvMap.copyOf(expected);
+
+    @Test
+    void navigatesLikeATreeMap() {
+        assertSameNavigation(map, expected);
+    }
+
+    @Test
+    void navigatesRangesLikeATreeMap() {
+        assertSameNavigation(map.subMap("B", true, "HOME", false), expected.subMap("B", true, "HOME", false));
+        assertSameNavigation(map.subMap("DB_URL", false, "HOME", true), expected.subMap("DB_URL", false, "HOME", true));
+        assertSameNavigation(map.headMap("DB_USER", false), expected.headMap("DB_USER", false));
+        assertSameNavigation(map.headMap("DB_USER", true), expected.headMap("DB_USER", true));
+        assertSameNavigation(map.tailMap("DB_USER", true), expected.tailMap("DB_USER", true));
+        assertSameNavigation(map.tailMap("DB_USER", false), expected.tailMap("DB_USER", false));
+        assertSameNavigation(map.subMap("DB_URL", true, "DB_USER", true).tailMap("DB_URL", false),
+                expected.subMap("DB_URL", true, "DB_USER", true).tailMap("DB_URL", false));
+    }
+
+    @Test
+    void navigatesDescendingViewsLikeATreeMap() {
+        assertSameNavigation(map.descendingMap(), expected.descendingMap());
+        assertSameNavigation(map.descendingMap().subMap("HOME", true, "B", false),
+                expected.descendingMap().subMap("HOME", true, "B", false));
+        assertSameNavigation(map.descendingMap().headMap("DB_USER", false),
+                expected.descendingMap().headMap("DB_USER", false));
+        assertSameNavigation(map.descendingMap().tailMap("DB_USER", false),
+                expected.descendingMap().tailMap("DB_USER", false));
+        assertSameNavigation(map.subMap("B", true, "PATH", false).descendingMap(),
+                expected.subMap("B", true, "PATH", false).descendingMap());
+        assertThat(map.descendingMap().descendingMap()).isSameAs(map);
+        assertThatThrownBy(() -> map.descendingMap().subMap("B", "HOME")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void navigatesEmptyMapsAndRanges() {
+        CompactEnvMap emptyRange = map.subMap("DB_URL", false, "DB_USER", false);
+
+        for (NavigableMap<String, String> empty : List.of(CompactEnvMap.EMPTY, emptyRange,
+                emptyRange.descendingMap())) {
+            assertThat(empty).isEmpty();
+            assertThat(empty.firstEntry()).isNull();
+            assertThat(empty.lastEntry()).isNull();
+            assertThat(empty.floorKey("DB_USER")).isNull();
+            assertThat(empty.ceilingKey("DB_URL")).isNull();
+            assertThat(empty.keySet()).isEmpty();
+            assertThat(empty.descendingMap()).isEmpty();
+            assertThatThrownBy(empty::firstKey).isInstanceOf(NoSuchElementException.class);
+            assertThatThrownBy(empty::lastKey).isInstanceOf(NoSuchElementException.class);
+        }
+        assertSameNavigation(emptyRange, expected.subMap("DB_URL", false, "DB_USER", false));
+    }
+
+    @Test
+    void clampsRangesOfRangesToTheirBounds() {
+        CompactEnvMap range = map.subMap("B", "HOME");
+
+        assertThat(range.tailMap("A")).isSameAs(range);
+        assertThat(range.headMap("Z").keySet()).containsExactly("DB_URL", "DB_USER");
+        assertThat(range.floorKey("Z")).isEqualTo("DB_USER");
+        assertThat(range.ceilingKey("A")).isEqualTo("DB_URL");
+        assertThatThrownBy(() -> map.subMap("HOME", "B")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void keySetsAreNavigableViews() {
+        assertSameNavigation(map.keySet(), expected.navigableKeySet());
+        assertSameNavigation(map.descendingKeySet(), expected.descendingKeySet());
+        assertSameNavigation(map.navigableKeySet().subSet("B", true, "HOME", true),
+                expected.navigableKeySet().subSet("B", true, "HOME", true));
+        assertSameNavigation(map.navigableKeySet().headSet("DB_USER", false),
+                expected.navigableKeySet().headSet("DB_USER", false));
+        assertSameNavigation(map.descendingKeySet().tailSet("DB_USER", false),
+                expected.descendingKeySet().tailSet("DB_USER", false));
+        assertSameNavigation(map.descendingKeySet().subSet("HOME", true, "B", false),
+                expected.descendingKeySet().subSet("HOME", true, "B", false));
+        assertSameNavigation(map.descendingKeySet().descendingSet(), expected.navigableKeySet());
+        assertThat(iterate(map.keySet().descendingIterator())).containsExactlyElementsOf(expected.descendingKeySet());
+        assertThatThrownBy(() -> map.keySet().pollFirst()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void viewsOfNamesOnlyMapsHaveEmptyValues() {
+        NavigableMap<String, String> names = map.namesOnly().descendingMap().headMap("DB_URL", true);
+
+        assertThat(names).containsExactly(Map.entry("PATH", ""), Map.entry("HOME", ""), Map.entry("DB_USER", ""),
+                Map.entry("DB_URL", ""));
+        assertThat(names.values()).containsOnly(CompactEnvMap.EMPTY_VALUE);
+    }
+
+    @Test
+    void rejectsModification() {
+        assertThatThrownBy(() -> map.put("NEW", "value")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(map::pollFirstEntry).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> map.descendingMap().pollLastEntry()).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> map.keySet().remove("PATH")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void reusesTheNamesOfThePreviousMap() {
+        String[] first = {"PATH", "DB_URL", "HOME"};
+        CompactEnvMap previous = CompactEnvMap.of(first, first.length, expected, null);
+        // Equal, but distinct instances, as read from a reloaded file
+        String[] second = {new String("HOME"), new String("DB_USER"), new String("PATH"), "DB_URL"};
+
+        CompactEnvMap current = CompactEnvMap.of(second, 3, expected, previous);
+
+        assertThat(current).containsExactly(Map.entry("DB_USER", "sa"), Map.entry("HOME", "/root"),
+                Map.entry("PATH", "/bin"));
+        assertThat(current.keyAt(1)).isSameAs(previous.keyAt(1));
+        assertThat(current.keyAt(2)).isSameAs(previous.keyAt(2));
+    }
+
+    @Test
+    void rejectsUnsortedEntries() {
+        Map<String, String> unsorted = new LinkedHashMap<>();
+        unsorted.put("PATH", "/bin");
+        unsorted.put("HOME", "/root");
+
+        assertThatThrownBy(() -> CompactEnvMap.copyOf(unsorted)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertSameNavigation(NavigableMap<String, String> actual,
+                                             NavigableMap<String, String> expected) {
+        assertThat(actual).isEqualTo(expected);
+        assertThat(expected).isEqualTo(actual);
+        assertThat(actual.hashCode()).isEqualTo(expected.hashCode());
+        assertThat(actual.entrySet()).containsExactlyElementsOf(expected.entrySet());
+        assertThat(actual.values()).containsExactlyElementsOf(expected.values());
+        assertThat(actual.firstEntry()).isEqualTo(expected.firstEntry());
+        assertThat(actual.lastEntry()).isEqualTo(expected.lastEntry());
+        for (String probe : PROBES) {
+            assertThat(actual.containsKey(probe)).as("containsKey %s", probe).isEqualTo(expected.containsKey(probe));
+            assertThat(actual.lowerEntry(probe)).as("lowerEntry %s", probe).isEqualTo(expected.lowerEntry(probe));
+            assertThat(actual.floorEntry(probe)).as("floorEntry %s", probe).isEqualTo(expected.floorEntry(probe));
+            assertThat(actual.ceilingEntry(probe)).as("ceilingEntry %s", probe).isEqualTo(expected.ceilingEntry(probe));
+            assertThat(actual.higherEntry(probe)).as("higherEntry %s", probe).isEqualTo(expected.higherEntry(probe));
+        }
+        assertSameNavigation(actual.navigableKeySet(), expected.navigableKeySet());
+        assertThat(actual.descendingKeySet()).containsExactlyElementsOf(expected.descendingKeySet());
+        assertThat(actual.descendingMap().entrySet()).containsExactlyElementsOf(expected.descendingMap().entrySet());
+    }
+
+    private static void assertSameNavigation(NavigableSet<String> actual, NavigableSet<String> expected) {
+        assertThat(actual).containsExactlyElementsOf(expected);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual.comparator() == null).isEqualTo(expected.comparator() == null);
+        if (!expected.isEmpty()) {
+            assertThat(actual.first()).isEqualTo(expected.first());
+            assertThat(actual.last()).isEqualTo(expected.last());
+        }
+        for (String probe : PROBES) {
+            assertThat(actual.contains(probe)).as("contains %s", probe).isEqualTo(expected.contains(probe));
+            assertThat(actual.lower(probe)).as("lower %s", probe).isEqualTo(expected.lower(probe));
+            assertThat(actual.floor(probe)).as("floor %s", probe).isEqualTo(expected.floor(probe));
+            assertThat(actual.ceiling(probe)).as("ceiling %s", probe).isEqualTo(expected.ceiling(probe));
+            assertThat(actual.higher(probe)).as("higher %s", probe).isEqualTo(expected.higher(probe));
+        }
+    }
+
+    private static List<String> iterate(Iterator<String> iterator) {
+        List<String> names = new ArrayList<>();
+        iterator.forEachRemaining(names::add);
+        return names;
+    }
+}
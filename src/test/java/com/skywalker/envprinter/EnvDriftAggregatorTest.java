@@ -0,0 +1,130 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class EnvDriftAggregatorTest {
+
+    private static final List<String> FLEET = List.of("a", "b", "c");
+
+    private final EnvPrinterProperties properties = new EnvPrinterProperties();
+    private final Map<String, AtomicReference<Map<String, String>>> environments = new HashMap<>();
+    private final Map<String, EnvFilterService> instances = new LinkedHashMap<>();
+    private final List<String> calls = new ArrayList<>();
+    private EnvDriftAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        properties.setProjectOnly(false);
+        properties.setShowValues(true);
+        for (String instance : FLEET) {
+            addInstance(instance, Map.of("DB_URL", "jdbc:h2:mem", "FEATURE_FLAG", "on", "REGION", "eu"));
+        }
+        EnvSnapshotTransport local = EnvSnapshotTransport.local(instances);
+        aggregator = new EnvDriftAggregator(new EnvSnapshotTransport() {
+            @Override
+            public EnvDigest fetchDigest(String instance) throws IOException {
+                calls.add("digest " + instance);
+                return local.fetchDigest(instance);
+            }
+
+            @Override
+            public Map<String, String> fetchEntries(String instance, Collection<String> names) throws IOException {
+                calls.add("entries " + instance + " " + names);
+                return local.fetchEntries(instance, names);
+            }
+        });
+    }
+
+    @Test
+    void consistentFleetTransfersOnlyDigests() {
+        EnvDriftReport report = aggregator.collect(FLEET);
+
+        assertThat(report.hasDrift()).isFalse();
+        assertThat(report.getVersions()).containsOnlyKeys("a", "b", "c");
+        assertThat(report.getUnreachable()).isEmpty();
+        assertThat(report.getKeysCompared()).isEqualTo(3);
+        assertThat(report.getEntriesFetched()).isZero();
+        assertThat(calls).containsExactly("digest a", "digest b", "digest c");
+    }
+
+    @Test
+    void fetchesOnlyTheNamesThatDiffer() {
+        environments.get("b").set(Map.of("DB_URL", "jdbc:postgresql://db", "FEATURE_FLAG", "on", "REGION", "eu"));
+        environments.get("c").set(Map.of("DB_URL", "jdbc:h2:mem", "REGION", "eu"));
+
+        EnvDriftReport report = aggregator.collect(FLEET);
+
+        assertThat(report.getDrift()).containsOnlyKeys("DB_URL", "FEATURE_FLAG");
+        assertThat(report.getDrift().get("DB_URL"))
+                .containsExactly(entry("a", "jdbc:h2:mem"), entry("b", "jdbc:postgresql://db"), entry("c", "jdbc:h2:mem"));
+        assertThat(report.getDrift().get("FEATURE_FLAG")).containsExactly(entry("a", "on"), entry("b", "on"));
+        assertThat(report.getEntriesFetched()).isEqualTo(5);
+        assertThat(calls).contains("entries a [DB_URL, FEATURE_FLAG]", "entries b [DB_URL, FEATURE_FLAG]",
+                "entries c [DB_URL]");
+    }
+
+    @Test
+    void refetchesOnlyValuesThatChangedSinceTheLastCollection() {
+        environments.get("b").set(Map.of("DB_URL", "jdbc:postgresql://db", "FEATURE_FLAG", "on", "REGION", "eu"));
+        aggregator.collect(FLEET);
+
+        calls.clear();
+        EnvDriftReport unchanged = aggregator.collect(FLEET);
+        assertThat(unchanged.getDrift()).containsOnlyKeys("DB_URL");
+        assertThat(unchanged.getEntriesFetched()).isZero();
+        assertThat(calls).containsExactly("digest a", "digest b", "digest c");
+
+        calls.clear();
+        environments.get("b").set(Map.of("DB_URL", "jdbc:postgresql://replica", "FEATURE_FLAG", "on", "REGION", "eu"));
+        EnvDriftReport changed = aggregator.collect(FLEET);
+        assertThat(changed.getDrift().get("DB_URL")).containsEntry("b", "jdbc:postgresql://replica");
+        assertThat(changed.getEntriesFetched()).isEqualTo(1);
+        assertThat(calls).containsExactly("digest a", "digest b", "digest c", "entries b [DB_URL]");
+    }
+
+    @Test
+    void comparesSecretsByTheirMask() {
+        environments.get("a").set(Map.of("DB_URL", "jdbc:h2:mem", "FEATURE_FLAG", "on", "REGION", "eu", "API_KEY", "one"));
+        environments.get("b").set(Map.of("DB_URL", "jdbc:h2:mem", "FEATURE_FLAG", "on", "REGION", "eu", "API_KEY", "two"));
+        environments.get("c").set(Map.of("DB_URL", "jdbc:h2:mem", "FEATURE_FLAG", "on", "REGION", "eu", "API_KEY", "one"));
+
+        assertThat(aggregator.collect(FLEET).hasDrift()).isFalse();
+    }
+
+    @Test
+    void reportsUnknownAndPendingInstancesAsUnreachable() {
+        EnvPrinterProperties pendingProperties = new EnvPrinterProperties();
+        pendingProperties.setStartupMode(EnvPrinterProperties.StartupMode.ASYNC);
+        Map<String, String> environment = Map.of("DB_URL", "jdbc:h2:mem");
+        instances.put("pending", new EnvFilterService(pendingProperties,
+                new EnvFilterServiceTest.StubScanner(pendingProperties), () -> environment));
+        aggregator = new EnvDriftAggregator(EnvSnapshotTransport.local(instances));
+
+        EnvDriftReport report = aggregator.collect(List.of("a", "b", "pending", "unknown"));
+
+        assertThat(report.getVersions()).containsOnlyKeys("a", "b");
+        assertThat(report.getUnreachable()).containsOnly(
+                entry("pending", "Scan pending on pending"), entry("unknown", "Unknown instance unknown"));
+        assertThat(report.hasDrift()).isFalse();
+    }
+
+    private void addInstance(String instance, Map<String, String> environment) {
+        AtomicReference<Map<String, String>> reference = new AtomicReference<>(environment);
+        environments.put(instance, reference);
+        instances.put(instance, new EnvFilterService(properties, new EnvFilterServiceTest.StubScanner(properties),
+                reference::get));
+    }
+}
@@ -0,0 +1,121 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvFileWatcherTest {
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(300);
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger checks = new AtomicInteger();
+    private EnvFileWatcher watcher;
+
+    @AfterEach
+    void stop() {
+        if (watcher != null) {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    void checksOnceForABurstOfEvents() throws Exception {
+        Path tree = Files.createDirectory(directory.resolve("tree"));
+        start(List.of(tree), List.of());
+
+        // A config map update swaps the ..data link and rewrites every entry at once
+        Path data = Files.createDirectory(tree.resolve("..2024_01_01"));
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(tree.resolve("KEY_" + i), "value");
+            Files.writeString(data.resolve("KEY_" + i), "value");
+        }
+        Files.delete(tree.resolve("KEY_0"));
+
+        awaitChecks(1);
+        Thread.sleep(DEBOUNCE.multipliedBy(3).toMillis());
+        assertThat(checks.get()).isEqualTo(1);
+        assertThat(watcher.isRunning()).isTrue();
+    }
+
+    @Test
+    void watchesDirectoriesCreatedInTheTreeAndForgetsDeletedOnes() throws Exception {
+        Path tree = Files.createDirectory(directory.resolve("tree"));
+        start(List.of(tree), List.of());
+
+        Path nested = Files.createDirectory(tree.resolve("nested"));
+        awaitChecks(1);
+        Files.writeString(nested.resolve("DB_URL"), "jdbc:h2:mem");
+        awaitChecks(2);
+
+        Files.delete(nested.resolve("DB_URL"));
+        Files.delete(nested);
+        awaitChecks(3);
+        // A directory recreated under the same name is registered again
+        Files.writeString(Files.createDirectory(nested).resolve("DB_URL"), "jdbc:h2:mem");
+        awaitChecks(4);
+        Files.writeString(nested.resolve("DB_URL"), "jdbc:postgresql://db");
+        awaitChecks(5);
+    }
+
+    @Test
+    void ignoresOtherFilesNextToADotenvFile() throws Exception {
+        Path dotenv = Files.writeString(directory.resolve(".env"), "DB_URL=one\n");
+        start(List.of(), List.of(dotenv));
+
+        Files.writeString(directory.resolve("notes.txt"), "unrelated");
+        Thread.sleep(DEBOUNCE.multipliedBy(3).toMillis());
+        assertThat(checks.get()).isZero();
+
+        Files.writeString(dotenv, "DB_URL=two\n");
+        awaitChecks(1);
+    }
+
+    @Test
+    void doesNotStartWithoutFilesToWatch() {
+        start(List.of(), List.of());
+
+        assertThat(watcher.isRunning()).isFalse();
+    }
+
+    private void start(List<Path> configTrees, List<Path> dotenvFiles) {
+        EnvPrinterProperties properties = new EnvPrinterProperties();
+        properties.setProjectOnly(false);
+        Map<String, String> env = Map.of("DB_URL", "jdbc:h2:mem");
+        EnvFilterService service = new EnvFilterService(properties, new EnvFilterServiceTest.StubScanner(properties),
+                new EnvVariableSource() {
+                    @Override
+                    public Map<String, String> getVariables() {
+                        return env;
+                    }
+
+                    @Override
+                    public boolean refresh() {
+                        checks.incrementAndGet();
+                        return false;
+                    }
+                });
+        watcher = new EnvFileWatcher(service, configTrees, dotenvFiles, DEBOUNCE);
+        watcher.start();
+    }
+
+    private void awaitChecks(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (checks.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(checks.get()).isEqualTo(expected);
+    }
+}
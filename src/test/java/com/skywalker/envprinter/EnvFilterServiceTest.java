@@ -0,0 +1,202 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnvFilterServiceTest {
+
+    private final EnvPrinterProperties properties = new EnvPrinterProperties();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneScan() throws Exception {
+        StubScanner scanner = new StubScanner(properties);
+        scanner.result = Set.of("DB_URL");
+        scanner.block();
+        EnvFilterService service = new EnvFilterService(properties, scanner, () -> Map.of("DB_URL", "jdbc:h2:mem"));
+
+        List<Future<EnvSnapshot>> callers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            callers.add(executor.submit(service::getSnapshot));
+        }
+        assertThat(scanner.started.await(5, TimeUnit.SECONDS)).isTrue();
+        // Give the other callers time to join the scan in progress
+        Thread.sleep(100);
+        scanner.release();
+
+        EnvSnapshot first = callers.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<EnvSnapshot> caller : callers) {
+            assertThat(caller.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(scanner.scans.get()).isEqualTo(1);
+        assertThat(first.getVariables()).containsOnlyKeys("DB_URL");
+    }
+
+    @Test
+    void refreshKeepsServingThePreviousResultUntilTheRescanCompletes() throws Exception {
+        StubScanner scanner = new StubScanner(properties);
+        scanner.result = Set.of("DB_URL");
+        EnvFilterService service = new EnvFilterService(properties, scanner,
+                () -> Map.of("DB_URL", "jdbc:h2:mem", "API_KEY", "key"));
+        EnvSnapshot before = service.getSnapshot();
+
+        scanner.result = Set.of("DB_URL", "API_KEY");
+        scanner.block();
+        Future<Set<String>> refresh = executor.submit(service::refresh);
+        assertThat(scanner.started.await(5, TimeUnit.SECONDS)).isTrue();
+        // Readers are served the previous result while the rescan runs
+        assertThat(service.getSnapshot()).isSameAs(before);
+        scanner.release();
+
+        assertThat(refresh.get(5, TimeUnit.SECONDS)).containsExactlyInAnyOrder("DB_URL", "API_KEY");
+        EnvSnapshot after = service.getSnapshot();
+        assertThat(after.getVariables()).containsOnlyKeys("API_KEY", "DB_URL");
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+        assertThat(scanner.scans.get()).isEqualTo(2);
+    }
+
+    @Test
+    void snapshotIsReplacedOnlyWhenContentChanges() {
+        properties.setProjectOnly(false);
+        AtomicReference<Map<String, String>> env = new AtomicReference<>(Map.of("DB_URL", "one"));
+        EnvFilterService service = new EnvFilterService(properties, new StubScanner(properties), env::get);
+        EnvSnapshot first = service.getSnapshot();
+
+        // A new map with the same content keeps the snapshot and its version
+        env.set(Map.of("DB_URL", "one"));
+        assertThat(service.getSnapshot()).isSameAs(first);
+
+        env.set(Map.of("DB_URL", "two"));
+        EnvSnapshot second = service.getSnapshot();
+        assertThat(second.getVersion()).isEqualTo(first.getVersion() + 1);
+        assertThat(second.getContentHash()).isNotEqualTo(first.getContentHash());
+        assertThat(first.getVariables()).containsEntry("DB_URL", "one");
+    }
+
+    @Test
+    void publishesTheChangedNamesAndVersions() {
+        properties.setProjectOnly(false);
+        AtomicReference<Map<String, String>> env = new AtomicReference<>(
+                Map.of("DB_URL", "one", "API_KEY", "key", "OLD_VAR", "old"));
+        EnvFilterService service = new EnvFilterService(properties, new StubScanner(properties), env::get);
+        List<EnvChangedEvent> events = new ArrayList<>();
+        service.setApplicationEventPublisher(event -> events.add((EnvChangedEvent) event));
+        EnvSnapshot first = service.getSnapshot();
+
+        env.set(Map.of("DB_URL", "two", "API_KEY", "key", "NEW_VAR", "new"));
+        EnvSnapshot second = service.getSnapshot();
+
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getPreviousVersion()).isEqualTo(first.getVersion());
+            assertThat(event.getCurrentVersion()).isEqualTo(second.getVersion());
+            assertThat(event.getAdded()).containsExactly("NEW_VAR");
+            assertThat(event.getRemoved()).containsExactly("OLD_VAR");
+            assertThat(event.getChanged()).containsExactly("DB_URL");
+        });
+    }
+
+    @Test
+    void failedStartupScanIsNotPendingAndIsRetried() {
+        properties.setStartupMode(EnvPrinterProperties.StartupMode.ASYNC);
+        StubScanner scanner = new StubScanner(properties);
+        scanner.failures = 1;
+        scanner.result = Set.of("DB_URL");
+        EnvFilterService service = new EnvFilterService(properties, scanner, () -> Map.of("DB_URL", "jdbc:h2:mem"));
+        assertThat(service.isScanPending()).isTrue();
+
+        assertThatThrownBy(service::getSnapshot).isInstanceOf(IllegalStateException.class);
+        assertThat(service.isScanPending()).isFalse();
+
+        assertThat(service.getSnapshot().getVariables()).containsOnlyKeys("DB_URL");
+        assertThat(scanner.scans.get()).isEqualTo(2);
+    }
+
+    @Test
+    void checkForChangesRefreshesTheSourceWhileTheStartupScanIsPending() {
+        properties.setStartupMode(EnvPrinterProperties.StartupMode.ASYNC);
+        StubScanner scanner = new StubScanner(properties);
+        AtomicInteger refreshes = new AtomicInteger();
+        Map<String, String> env = Map.of("DB_URL", "jdbc:h2:mem");
+        EnvFilterService service = new EnvFilterService(properties, scanner, new EnvVariableSource() {
+            @Override
+            public Map<String, String> getVariables() {
+                return env;
+            }
+
+            @Override
+            public boolean refresh() {
+                refreshes.incrementAndGet();
+                return false;
+            }
+        });
+
+        assertThat(service.checkForChanges()).isNull();
+        assertThat(refreshes.get()).isEqualTo(1);
+        assertThat(scanner.scans.get()).isZero();
+    }
+
+    /**
+     * Scanner returning a fixed result, optionally failing first or blocking until released.
+     */
+    static class StubScanner extends EnvUsageScanner {
+
+        volatile Set<String> result = Set.of();
+        volatile int failures;
+        final AtomicInteger scans = new AtomicInteger();
+        volatile CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+
+        StubScanner(EnvPrinterProperties properties) {
+            super(properties);
+        }
+
+        void block() {
+            started = new CountDownLatch(1);
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        @Override
+        public Set<String> scanForUsedEnvVariables() {
+            scans.incrementAndGet();
+            started.countDown();
+            CountDownLatch gate = this.gate;
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                this.gate = null;
+            }
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Scan failed");
+            }
+            return result;
+        }
+    }
+}
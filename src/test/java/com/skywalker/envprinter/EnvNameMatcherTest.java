@@ -0,0 +1,124 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvNameMatcherTest {
+
+    @Test
+    void excludesTheHardcodedOsVariablesAsTheBaselineDid() {
+        Map<String, String> env = new LinkedHashMap<>();
+        for (String name : List.of("PROCESSOR_ARCHITECTURE", "PROCESSOR_IDENTIFIER", "PROCESSOR_ARCHITEW6432",
+                "windir", "CommonProgramFiles(x86)", "ProgramFiles(x86)", "TEMP", "LANG", "XDG_RUNTIME_DIR",
+                "USERDOMAIN_ROAMINGPROFILE", "DB_URL", "WINDIR", "PROCESSOR", "TEMPLATE_DIR", "LANG_PACK",
+                "CommonProgramFiles(x86)_EXTRA", "XDG_DATA_DIRS", "MY_PROCESSOR_ARCHITECTURE")) {
+            env.put(name, "value");
+        }
+        EnvPrinterProperties properties = new EnvPrinterProperties();
+        properties.setProjectOnly(false);
+        properties.setShowValues(true);
+        EnvFilterService service = new EnvFilterService(properties, new EnvFilterServiceTest.StubScanner(properties),
+                () -> env);
+
+        // Only exclusions ending in "_" act as prefixes and the hardcoded list has none, so the
+        // PROCESSOR_* variables are excluded by their exact names, as before
+        assertThat(service.getSnapshot().getVariables()).containsOnlyKeys("PROCESSOR_ARCHITEW6432", "DB_URL",
+                "WINDIR", "PROCESSOR", "TEMPLATE_DIR", "LANG_PACK", "CommonProgramFiles(x86)_EXTRA", "XDG_DATA_DIRS",
+                "MY_PROCESSOR_ARCHITECTURE");
+    }
+
+    @Test
+    void matchesExactNamesAndUnderscorePrefixes() {
+        EnvNameMatcher matcher = EnvNameMatcher.compile(List.of("windir", "CommonProgramFiles(x86)", "PROCESSOR_"));
+
+        assertThat(matcher.matches("windir")).isTrue();
+        assertThat(matcher.matches("WINDIR")).isFalse();
+        assertThat(matcher.matches("CommonProgramFiles(x86)")).isTrue();
+        assertThat(matcher.matches("CommonProgramFiles")).isFalse();
+        assertThat(matcher.matches("PROCESSOR_")).isTrue();
+        assertThat(matcher.matches("PROCESSOR_LEVEL")).isTrue();
+        assertThat(matcher.matches("PROCESSOR")).isFalse();
+        assertThat(matcher.matches("NUMBER_OF_PROCESSORS")).isFalse();
+    }
+
+    @Test
+    void matchesStarPrefixes() {
+        EnvNameMatcher matcher = EnvNameMatcher.compile(List.of("XDG_*", "K8S*"));
+
+        assertThat(matcher.matches("XDG_")).isTrue();
+        assertThat(matcher.matches("XDG_SESSION_ID")).isTrue();
+        assertThat(matcher.matches("K8S")).isTrue();
+        assertThat(matcher.matches("K8S_NAMESPACE")).isTrue();
+        assertThat(matcher.matches("XDG")).isFalse();
+        assertThat(matcher.matches("MY_XDG_DIR")).isFalse();
+    }
+
+    @Test
+    void matchesSuffixes() {
+        EnvNameMatcher matcher = EnvNameMatcher.compile(List.of("*_TOKEN", "*_KEY"));
+
+        assertThat(matcher.matches("GITHUB_TOKEN")).isTrue();
+        assertThat(matcher.matches("_TOKEN")).isTrue();
+        assertThat(matcher.matches("API_KEY")).isTrue();
+        assertThat(matcher.matches("TOKEN")).isFalse();
+        assertThat(matcher.matches("GITHUB_TOKEN_FILE")).isFalse();
+        assertThat(matcher.matches("API_KEYS")).isFalse();
+    }
+
+    @Test
+    void matchesInfixes() {
+        EnvNameMatcher matcher = EnvNameMatcher.compile(List.of("*SECRET*"));
+
+        assertThat(matcher.matches("SECRET")).isTrue();
+        assertThat(matcher.matches("DB_SECRET")).isTrue();
+        assertThat(matcher.matches("SECRET_KEY")).isTrue();
+        assertThat(matcher.matches("MY_SECRET_VALUE")).isTrue();
+        assertThat(matcher.matches("SECRE")).isFalse();
+        assertThat(matcher.matches("SEC_RET")).isFalse();
+    }
+
+    @Test
+    void backtracksThroughGlobs() {
+        EnvNameMatcher matcher = EnvNameMatcher.compile(List.of("*_*_URL"));
+
+        assertThat(matcher.matches("A_B_URL")).isTrue();
+        // The first star must give back underscores for the second one to match
+        assertThat(matcher.matches("SPRING_DATASOURCE_URL")).isTrue();
+        assertThat(matcher.matches("A_B_C_D_URL")).isTrue();
+        assertThat(matcher.matches("__URL")).isTrue();
+        assertThat(matcher.matches("DB_URL")).isFalse();
+        assertThat(matcher.matches("A_B_URLS")).isFalse();
+        assertThat(matcher.matches("A_B_URL_X_URI")).isFalse();
+    }
+
+    @Test
+    void matchesSingleCharacterWildcardsAndMixedGlobs() {
+        EnvNameMatcher matcher = EnvNameMatcher.compile(List.of("DB?_URL", "APP_*_PORT", "*?X"));
+
+        assertThat(matcher.matches("DB1_URL")).isTrue();
+        assertThat(matcher.matches("DB_URL")).isFalse();
+        assertThat(matcher.matches("DB12_URL")).isFalse();
+        assertThat(matcher.matches("APP_HTTP_PORT")).isTrue();
+        assertThat(matcher.matches("APP__PORT")).isTrue();
+        assertThat(matcher.matches("APP_PORT")).isFalse();
+        assertThat(matcher.matches("AX")).isTrue();
+        assertThat(matcher.matches("X")).isFalse();
+    }
+
+    @Test
+    void ignoresBlankPatternsAndTrimsTheRest() {
+        assertThat(EnvNameMatcher.compile(List.of()).isEmpty()).isTrue();
+        assertThat(EnvNameMatcher.compile(List.of("", "  ")).isEmpty()).isTrue();
+
+        EnvNameMatcher matcher = EnvNameMatcher.compile(List.of(" DB_URL ", "\tXDG_*"));
+        assertThat(matcher.isEmpty()).isFalse();
+        assertThat(matcher.matches("DB_URL")).isTrue();
+        assertThat(matcher.matches("XDG_DATA_DIRS")).isTrue();
+        assertThat(matcher.matches(" DB_URL ")).isFalse();
+    }
+}
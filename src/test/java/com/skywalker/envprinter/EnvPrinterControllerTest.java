@@ -0,0 +1,116 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnvPrinterControllerTest {
+
+    private final EnvPrinterProperties properties = new EnvPrinterProperties();
+    private final EnvFilterServiceTest.StubScanner scanner = new EnvFilterServiceTest.StubScanner(properties);
+    private EnvFilterService filterService;
+    private final List<String> outcomes = new ArrayList<>();
+    private EnvPrinterController controller;
+
+    @BeforeEach
+    void setUp() {
+        properties.setStartupMode(EnvPrinterProperties.StartupMode.ASYNC);
+        scanner.result = Set.of("DB_URL");
+        filterService = new EnvFilterService(properties, scanner, () -> Map.of("DB_URL", "jdbc:h2:mem"));
+        controller = new EnvPrinterController(filterService, new EnvPrinterMetrics() {
+            @Override
+            public void recordEndpointRequest(String endpoint, String outcome, long nanos) {
+                outcomes.add(endpoint + ":" + outcome);
+            }
+        });
+    }
+
+    @Test
+    void answersServiceUnavailableWhileTheStartupScanIsPending() {
+        ResponseEntity<byte[]> response = controller.getEnvironment(null, null, null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(scanner.scans.get()).isZero();
+    }
+
+    @Test
+    void retriesTheScanAfterTheStartupScanFailed() {
+        scanner.failures = 1;
+        // The background startup print logs the failure and gives up
+        new EnvPrinter(filterService, properties, Runnable::run).start();
+        assertThat(scanner.scans.get()).isEqualTo(1);
+
+        ResponseEntity<byte[]> response = controller.getEnvironment(null, null, null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).contains("\"DB_URL\"");
+        assertThat(scanner.scans.get()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsTheErrorWhenTheScanKeepsFailing() {
+        scanner.failures = 2;
+        new EnvPrinter(filterService, properties, Runnable::run).start();
+
+        assertThatThrownBy(() -> controller.getEnvironment(null, null, null, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(scanner.scans.get()).isEqualTo(2);
+    }
+
+    @Test
+    void returnsTheEndpointViewToJavaCallers() {
+        Map<String, String> environment = controller.getEnvironment();
+
+        assertThat(environment).containsExactly(Map.entry("DB_URL", ""));
+        assertThat(environment).isSameAs(filterService.getFilteredEnvironmentForEndpoint());
+    }
+
+    @Test
+    void answersNotModifiedWithoutRecordingAFullResponse() {
+        properties.setStartupMode(EnvPrinterProperties.StartupMode.SYNC);
+        ResponseEntity<byte[]> first = controller.getEnvironment(null, null, null, null, null, get(null));
+        ResponseEntity<byte[]> digest = controller.getDigest(get(null));
+        String etag = first.getHeaders().getETag();
+
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertThat(controller.getEnvironment(null, null, null, null, null, get(etag, notModified))).isNull();
+        MockHttpServletResponse digestNotModified = new MockHttpServletResponse();
+        assertThat(controller.getDigest(get(digest.getHeaders().getETag(), digestNotModified))).isNull();
+        // A query selecting other entries has its own ETag
+        ResponseEntity<byte[]> query = controller.getEnvironment("API_", null, null, null, null, get(etag));
+
+        assertThat(notModified.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(notModified.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        assertThat(digestNotModified.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(query.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(outcomes).containsExactly("rest:ok", "rest_digest:ok", "rest:not_modified",
+                "rest_digest:not_modified", "rest:ok");
+    }
+
+    private static ServletWebRequest get(String ifNoneMatch) {
+        return get(ifNoneMatch, new MockHttpServletResponse());
+    }
+
+    private static ServletWebRequest get(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/env/env-printer");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,93 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvPrinterHandlerTest {
+
+    private final EnvPrinterProperties properties = new EnvPrinterProperties();
+    private final List<String> outcomes = new CopyOnWriteArrayList<>();
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+    private EnvFilterService filterService;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        properties.setProjectOnly(false);
+        Map<String, String> env = Map.of("DB_URL", "jdbc:h2:mem");
+        filterService = new EnvFilterService(properties, new EnvUsageScanner(properties), () -> env);
+        EnvPrinterMetrics metrics = new EnvPrinterMetrics() {
+            @Override
+            public void recordEndpointRequest(String endpoint, String outcome, long nanos) {
+                outcomes.add(endpoint + ":" + outcome);
+                threads.add(Thread.currentThread().getName());
+            }
+        };
+        EnvPrinterHandler handler = new EnvPrinterHandler(filterService, metrics);
+        client = WebTestClient.bindToRouterFunction(RouterFunctions.route()
+                .GET("/env/env-printer", handler::getEnvironment)
+                .GET("/env/env-printer/stream", handler::streamEnvironment)
+                .GET("/env/env-printer/digest", handler::getDigest)
+                .build()).build();
+    }
+
+    @Test
+    void recordsNotModifiedSeparately() {
+        String etag = client.get().uri("/env/env-printer").exchange()
+                .expectStatus().isOk()
+                .returnResult(byte[].class).getResponseHeaders().getETag();
+
+        client.get().uri("/env/env-printer").header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified();
+
+        assertThat(outcomes).containsExactly("rest:ok", "rest:not_modified");
+    }
+
+    @Test
+    void encodesACurrentSnapshotOffTheCallingThread() {
+        // Current, but neither encoded nor digested yet
+        EnvSnapshot snapshot = filterService.getSnapshot();
+        assertThat(snapshot.isPrepared(false)).isFalse();
+
+        client.get().uri("/env/env-printer").exchange().expectStatus().isOk();
+        assertThat(snapshot.isPrepared(false)).isTrue();
+        assertThat(snapshot.isPrepared(true)).isFalse();
+        assertThat(threads.get(0)).startsWith("boundedElastic");
+
+        client.get().uri("/env/env-printer/digest").exchange().expectStatus().isOk();
+        assertThat(snapshot.isPrepared(true)).isTrue();
+        assertThat(threads.get(1)).startsWith("boundedElastic");
+
+        // Now served on the calling thread
+        client.get().uri("/env/env-printer").exchange().expectStatus().isOk();
+        client.get().uri("/env/env-printer/digest").exchange().expectStatus().isOk();
+        assertThat(threads.subList(2, 4)).noneMatch(name -> name.startsWith("boundedElastic"));
+    }
+
+    @Test
+    void selectsQueriesAndStreamsOffTheCallingThreadEvenForAPreparedSnapshot() {
+        EnvSnapshot snapshot = filterService.getSnapshot();
+        snapshot.getEndpointJson();
+        assertThat(snapshot.isPrepared(false)).isTrue();
+
+        client.get().uri("/env/env-printer").exchange().expectStatus().isOk();
+        client.get().uri("/env/env-printer?prefix=DB_").exchange().expectStatus().isOk()
+                .expectBody(String.class).value(body -> assertThat(body).contains("\"DB_URL\""));
+        client.get().uri("/env/env-printer/stream?glob=DB_*").exchange().expectStatus().isOk()
+                .expectBody(String.class).value(body -> assertThat(body).contains("\"DB_URL\""));
+
+        assertThat(outcomes).containsExactly("rest:ok", "rest:ok", "rest_stream:ok");
+        // The whole view is served as encoded, a query is selected, encoded and hashed elsewhere
+        assertThat(threads.get(0)).doesNotStartWith("boundedElastic");
+        assertThat(threads.subList(1, 3)).allMatch(name -> name.startsWith("boundedElastic"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.env.SystemEnvironmentPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvPropertyGraphTest {
+
+    private final StandardEnvironment environment = new StandardEnvironment();
+    private final Map<String, Object> variables = new HashMap<>();
+    private final Map<String, Object> application = new HashMap<>();
+
+    EnvPropertyGraphTest() {
+        environment.getPropertySources().remove(StandardEnvironment.SYSTEM_PROPERTIES_PROPERTY_SOURCE_NAME);
+        environment.getPropertySources().replace(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME,
+                new SystemEnvironmentPropertySource(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME,
+                        variables));
+        environment.getPropertySources().addLast(new MapPropertySource("application", application));
+        // Adapts every other source and must not be walked
+        ConfigurationPropertySources.attach(environment);
+    }
+
+    @Test
+    void followsPlaceholderChainsAndNestedDefaults() {
+        variables.put("PRIMARY_URL", "jdbc:postgresql://db");
+        application.put("app.url", "${PRIMARY_URL:${FALLBACK_URL}}");
+        application.put("app.alias", "${app.url}/${app.name:orders}");
+        application.put("app.name", "${APP_NAME:orders}");
+        application.put("app.plain", "orders");
+
+        EnvPropertyGraph graph = EnvPropertyGraph.build(environment, null);
+
+        assertThat(graph.getVariables("app.url")).containsExactlyInAnyOrder("PRIMARY_URL", "FALLBACK_URL");
+        assertThat(graph.getVariables("app.alias")).containsExactlyInAnyOrder("PRIMARY_URL", "FALLBACK_URL",
+                "APP_NAME");
+        assertThat(graph.getVariables("app.plain")).isEmpty();
+        assertThat(graph.getVariables()).containsExactlyInAnyOrder("PRIMARY_URL", "FALLBACK_URL", "APP_NAME");
+        assertThat(graph.getPropertyCount()).isEqualTo(4);
+    }
+
+    @Test
+    void breaksCycles() {
+        application.put("cycle.self", "${cycle.self}");
+        application.put("cycle.a", "${cycle.b}");
+        application.put("cycle.b", "${cycle.a:${CYCLE_FALLBACK}}");
+        application.put("cycle.defaulted", "${cycle.defaulted:${SELF_FALLBACK}}");
+
+        EnvPropertyGraph graph = EnvPropertyGraph.build(environment, null);
+
+        assertThat(graph.getVariables("cycle.self")).isEmpty();
+        assertThat(graph.getVariables("cycle.a")).containsExactly("CYCLE_FALLBACK");
+        assertThat(graph.getVariables("cycle.defaulted")).containsExactly("SELF_FALLBACK");
+        assertThat(graph.getVariables()).containsExactlyInAnyOrder("CYCLE_FALLBACK", "SELF_FALLBACK");
+    }
+
+    @Test
+    void namesUnsetPlaceholdersAsVariables() {
+        application.put("app.key", "${API_KEY}");
+        application.put("app.region", "${deploy.region:eu}");
+        application.put("app.zone", "${deploy-zone}");
+
+        EnvPropertyGraph graph = EnvPropertyGraph.build(environment, null);
+
+        assertThat(graph.getVariables("app.key")).containsExactly("API_KEY");
+        assertThat(graph.getVariables("app.region")).containsExactly("DEPLOY_REGION");
+        assertThat(graph.getVariables("app.zone")).containsExactly("DEPLOY_ZONE");
+        assertThat(graph.getVariables("undefined.property")).isEmpty();
+    }
+
+    @Test
+    void prefersRelaxedVariablesThatOverrideAProperty() {
+        variables.put("SPRING_DATASOURCE_URL", "jdbc:postgresql://db");
+        application.put("spring.datasource.url", "${DB_URL}");
+        application.put("spring.datasource.username", "${DB_USER:sa}");
+
+        EnvPropertyGraph graph = EnvPropertyGraph.build(environment, null);
+
+        assertThat(graph.getVariables("spring.datasource.url")).containsExactly("SPRING_DATASOURCE_URL");
+        assertThat(graph.getVariables("spring.datasource.username")).containsExactly("DB_USER");
+    }
+
+    @Test
+    void reportsVariablesBoundToConfigurationPropertiesPrefixes() {
+        variables.put("FOO_BAR_BAZ", "1");
+        variables.put("FOO_BARBAZ", "2");
+        variables.put("HOME", "/root");
+        application.put("foo.bar.name", "${FOO_NAME:foo}");
+        application.put("foo.other", "${FOO_OTHER}");
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("fooBar", new RootBeanDefinition(FooBarProperties.class));
+        beanFactory.registerBeanDefinition("plain", new RootBeanDefinition(Object.class));
+
+        EnvPropertyGraph graph = EnvPropertyGraph.build(environment, beanFactory);
+
+        // Relaxed binding alone picks up FOO_BAR_BAZ, which no configuration file mentions
+        assertThat(graph.getBoundVariables()).containsOnlyKeys("foo.bar");
+        assertThat(graph.getBoundVariables().get("foo.bar")).containsExactly("FOO_BAR_BAZ", "FOO_NAME");
+        assertThat(graph.getVariables()).contains("FOO_BAR_BAZ", "FOO_NAME", "FOO_OTHER")
+                .doesNotContain("FOO_BARBAZ", "HOME");
+    }
+
+    @ConfigurationProperties(prefix = "foo.bar")
+    static class FooBarProperties {
+
+        private String baz;
+        private String name;
+
+        public String getBaz() {
+            return baz;
+        }
+
+        public void setBaz(String baz) {
+            this.baz = baz;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnvQueryTest {
+
+    private final TreeMap<String, String> view = new TreeMap<>();
+
+    EnvQueryTest() {
+        view.put("API_KEY", "******");
+        view.put("DB_POOL_MAX", "10");
+        view.put("DB_POOL_MIN", "1");
+        view.put("DB_URL", "jdbc:h2:mem");
+        view.put("DB_USER", null);
+        view.put("HOME", "/root");
+        view.put("PATH", "/bin");
+    }
+
+    @Test
+    void pagesThroughTheViewWithTheLastNameAsCursor() {
+        List<String> all = new ArrayList<>();
+        String cursor = null;
+        List<List<String>> pages = new ArrayList<>();
+        do {
+            List<String> page = select(EnvQuery.of(null, null, 3, cursor));
+            pages.add(page);
+            all.addAll(page);
+            cursor = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (cursor != null);
+
+        assertThat(pages).containsExactly(List.of("API_KEY", "DB_POOL_MAX", "DB_POOL_MIN"),
+                List.of("DB_URL", "DB_USER", "HOME"), List.of("PATH"), List.of());
+        assertThat(all).containsExactlyElementsOf(view.keySet());
+    }
+
+    @Test
+    void continuesAfterACursorThatIsNotInTheView() {
+        assertThat(select(EnvQuery.of(null, null, 2, "DB_Q"))).containsExactly("DB_URL", "DB_USER");
+        assertThat(select(EnvQuery.of(null, null, null, "ZZZ"))).isEmpty();
+    }
+
+    @Test
+    void selectsAPrefixRange() {
+        assertThat(select(EnvQuery.of("DB_", null, null, null)))
+                .containsExactly("DB_POOL_MAX", "DB_POOL_MIN", "DB_URL", "DB_USER");
+        assertThat(select(EnvQuery.of("DB_", null, 2, null))).containsExactly("DB_POOL_MAX", "DB_POOL_MIN");
+        assertThat(select(EnvQuery.of("NOPE_", null, null, null))).isEmpty();
+    }
+
+    @Test
+    void appliesCursorsWithinThePrefixRange() {
+        // A cursor before the prefix starts at the prefix, one after it selects nothing
+        assertThat(select(EnvQuery.of("DB_", null, null, "A"))).hasSize(4);
+        assertThat(select(EnvQuery.of("DB_", null, null, "DB_POOL_MIN"))).containsExactly("DB_URL", "DB_USER");
+        assertThat(select(EnvQuery.of("DB_", null, null, "DB_USER"))).isEmpty();
+        assertThat(select(EnvQuery.of("DB_", null, null, "HOME"))).isEmpty();
+    }
+
+    @Test
+    void filtersTheRangeWithAPattern() {
+        assertThat(select(EnvQuery.of(null, "DB_POOL_*", null, null))).containsExactly("DB_POOL_MAX", "DB_POOL_MIN");
+        assertThat(select(EnvQuery.of(null, "*_U*", null, null))).containsExactly("DB_URL", "DB_USER");
+        assertThat(select(EnvQuery.of("DB_", "DB_U*", 1, "DB_URL"))).containsExactly("DB_USER");
+        // The limit counts matching names only
+        assertThat(select(EnvQuery.of(null, "*_MIN", 1, null))).containsExactly("DB_POOL_MIN");
+        // The prefix and the pattern exclude each other
+        assertThat(select(EnvQuery.of("DB_", "HOME*", null, null))).isEmpty();
+    }
+
+    @Test
+    void looksUpExactNamesInNameOrder() {
+        EnvQuery query = EnvQuery.of(null, null, " PATH,DB_USER,,MISSING", null, null);
+
+        List<Map.Entry<String, String>> entries = new ArrayList<>();
+        query.select(CompactEnvMap.copyOf(view)).forEach(entries::add);
+
+        // Unset project variables are kept with their null value
+        assertThat(entries).extracting(Map.Entry::getKey).containsExactly("DB_USER", "PATH");
+        assertThat(entries.get(0).getValue()).isNull();
+        assertThat(select(EnvQuery.of(null, null, "PATH,DB_USER,API_KEY", 2, "API_KEY")))
+                .containsExactly("DB_USER", "PATH");
+    }
+
+    @Test
+    void recognizesQueriesForTheWholeView() {
+        assertThat(EnvQuery.of(null, null, null, null).isAll()).isTrue();
+        assertThat(EnvQuery.of("", " ", "", null, "").isAll()).isTrue();
+        assertThat(EnvQuery.of(null, null, 100, null).isAll()).isFalse();
+        assertThat(select(EnvQuery.ALL)).containsExactlyElementsOf(view.keySet());
+    }
+
+    @Test
+    void rejectsLimitsBelowOne() {
+        assertThatThrownBy(() -> EnvQuery.of(null, null, 0, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Selects from both a compact and a tree view, which must agree, and returns the names.
+     */
+    private List<String> select(EnvQuery query) {
+        List<String> fromCompact = new ArrayList<>();
+        Iterable<Map.Entry<String, String>> selection = query.select(CompactEnvMap.copyOf(view));
+        selection.forEach(entry -> fromCompact.add(entry.getKey()));
+        List<String> fromTree = new ArrayList<>();
+        query.select(view).forEach(entry -> fromTree.add(entry.getKey()));
+        assertThat(fromCompact).isEqualTo(fromTree);
+        // Every iteration starts over
+        List<String> again = new ArrayList<>();
+        selection.forEach(entry -> again.add(entry.getKey()));
+        assertThat(again).isEqualTo(fromCompact);
+        return fromCompact;
+    }
+}
@@ -0,0 +1,182 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvReferenceExtractorTest {
+
+    /**
+     * The line-based patterns the single-pass extractor replaced.
+     */
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}:]+)(?::[^}]*)?\\}");
+    private static final Pattern GETENV = Pattern.compile("System\\.getenv\\([\"']([^\"']+)[\"']\\)");
+    private static final Pattern VALUE_ANNOTATION =
+            Pattern.compile("@Value\\([\"']\\$\\{([^}:]+)(?::[^}]*)?\\}[\"']\\)");
+
+    static Stream<Arguments> references() {
+        return Stream.of(
+                Arguments.of("url=${DB_URL}", List.of("DB_URL")),
+                Arguments.of("port=${SERVER_PORT:8080}", List.of("SERVER_PORT")),
+                Arguments.of("empty=${EMPTY_DEFAULT:}", List.of("EMPTY_DEFAULT")),
+                Arguments.of("both=${A_VAR}-${B_VAR}", List.of("A_VAR", "B_VAR")),
+                Arguments.of("padded=${ HOST_NAME }", List.of("HOST_NAME")),
+                Arguments.of("prefixed=${env.DB_PASSWORD} ${sys.JAVA_OPTS} ${system.USER_HOME}",
+                        List.of("DB_PASSWORD", "JAVA_OPTS", "USER_HOME")),
+                Arguments.of("environment=${environment.REGION}", List.of("REGION")),
+                Arguments.of("lowerWithUnderscore=${my_var}", List.of("my_var")),
+                Arguments.of("upper=${PORT2}", List.of("PORT2")),
+                Arguments.of("@Value(\"${API_KEY:none}\") String key;", List.of("API_KEY")),
+                Arguments.of("String home = System.getenv(\"HOME_DIR\");", List.of("HOME_DIR")),
+                Arguments.of("String path = System.getenv('path');", List.of("path")),
+                Arguments.of("String value = System.getenv(\" env.TRIMMED \");", List.of("TRIMMED")),
+                // isLikelyEnvVar rejects
+                Arguments.of("port=${server.port}", List.of()),
+                Arguments.of("name=${spring.application.name:app}", List.of()),
+                Arguments.of("mixed=${Path}", List.of()),
+                Arguments.of("prefixOnly=${env.}", List.of()),
+                // Not references
+                Arguments.of("open=${UNCLOSED", List.of()),
+                Arguments.of("empty=${}", List.of()),
+                Arguments.of("dollar=$DB_URL", List.of()),
+                Arguments.of("String v = System.getenv(name);", List.of()),
+                Arguments.of("String v = System.getenv(\"UNCLOSED_CALL\";", List.of()),
+                // Multi-byte UTF-8 before, around and inside names
+                Arguments.of("# Grüße ${GREETING_TEXT} für alle", List.of("GREETING_TEXT")),
+                Arguments.of("city=${DB_ZÜRICH}", List.of("DB_ZÜRICH")),
+                Arguments.of("fruit=${ÄPFEL}", List.of()),
+                Arguments.of("emoji=🚀${LAUNCH_CODE}🚀", List.of("LAUNCH_CODE")));
+    }
+
+    static Stream<Arguments> nestedDefaults() {
+        return Stream.of(
+                Arguments.of("url=${DB_URL:${FALLBACK_URL}}", List.of("DB_URL", "FALLBACK_URL"), List.of("DB_URL")),
+                Arguments.of("deep=${A_VAR:${B_VAR:${C_VAR}}}", List.of("A_VAR", "B_VAR", "C_VAR"), List.of("A_VAR")),
+                Arguments.of("@Value(\"${OUTER_VAR:${INNER_VAR}}\")", List.of("OUTER_VAR", "INNER_VAR"),
+                        List.of("OUTER_VAR")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("references")
+    void extractsCharacters(String line, List<String> expected) {
+        assertThat(extractChars(line)).containsExactlyElementsOf(expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("references")
+    void extractsUtf8Bytes(String line, List<String> expected) {
+        assertThat(extractBytes(line, false)).containsExactlyElementsOf(expected);
+        assertThat(extractBytes(line, true)).containsExactlyElementsOf(expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("references")
+    void agreesWithTheReplacedPatterns(String line, List<String> expected) {
+        assertThat(legacy(line)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("nestedDefaults")
+    void reportsPlaceholdersNestedInDefaults(String line, List<String> expected, List<String> legacy) {
+        assertThat(extractChars(line)).containsExactlyElementsOf(expected);
+        assertThat(extractBytes(line, true)).containsExactlyElementsOf(expected);
+        // The replaced patterns stopped at the first closing brace and missed the nested names
+        assertThat(legacy(line)).containsExactlyElementsOf(legacy);
+    }
+
+    @Test
+    void neverMatchesAcrossLines() {
+        String text = "a=${SPLIT\n_VAR}\nb=${DEFAULTED:x\n}\nc=System.getenv(\"BROKEN\n\")\nd=${WHOLE_VAR}\r\n";
+
+        assertThat(extractChars(text)).containsExactly("WHOLE_VAR");
+        assertThat(extractBytes(text, true)).containsExactly("WHOLE_VAR");
+    }
+
+    @Test
+    void scansBytesFromPositionToLimitWithoutMovingThem() {
+        byte[] bytes = "x=${SKIPPED_VAR} y=${KEPT_VAR} z=${CUT_VAR}".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(16).limit(31);
+        List<String> names = new ArrayList<>();
+
+        EnvReferenceExtractor.extract(buffer, names::add);
+
+        assertThat(names).containsExactly("KEPT_VAR");
+        assertThat(buffer.position()).isEqualTo(16);
+        assertThat(buffer.limit()).isEqualTo(31);
+    }
+
+    @Test
+    void extractsOnlyPlaceholdersFromPropertyValues() {
+        List<String> names = new ArrayList<>();
+
+        EnvReferenceExtractor.extractPlaceholders("${A_VAR:${B_VAR}} System.getenv(\"C_VAR\")", names::add);
+
+        assertThat(names).containsExactly("A_VAR", "B_VAR");
+    }
+
+    @Test
+    void trimsPrefixesAndChecksNames() {
+        assertThat(EnvReferenceExtractor.trimEnvVarName("env.DB_PASSWORD")).isEqualTo("DB_PASSWORD");
+        assertThat(EnvReferenceExtractor.trimEnvVarName("system.env.X")).isEqualTo("env.X");
+        assertThat(EnvReferenceExtractor.trimEnvVarName("DB_URL")).isEqualTo("DB_URL");
+        assertThat(EnvReferenceExtractor.isLikelyEnvVar("DB_URL")).isTrue();
+        assertThat(EnvReferenceExtractor.isLikelyEnvVar("PORT")).isTrue();
+        assertThat(EnvReferenceExtractor.isLikelyEnvVar("some_name")).isTrue();
+        assertThat(EnvReferenceExtractor.isLikelyEnvVar("server.port")).isFalse();
+        assertThat(EnvReferenceExtractor.isLikelyEnvVar("1PORT")).isFalse();
+        assertThat(EnvReferenceExtractor.isLikelyEnvVar("")).isFalse();
+        assertThat(EnvReferenceExtractor.isLikelyEnvVar(null)).isFalse();
+    }
+
+    private static List<String> extractChars(String text) {
+        List<String> names = new ArrayList<>();
+        EnvReferenceExtractor.extract(text, names::add);
+        return names;
+    }
+
+    private static List<String> extractBytes(String text, boolean direct) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes).flip();
+        List<String> names = new ArrayList<>();
+        EnvReferenceExtractor.extract(buffer, names::add);
+        return names;
+    }
+
+    /**
+     * Applies the replaced patterns line by line, as the scanner used to.
+     */
+    private static Set<String> legacy(String text) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String line : text.split("\r?\n")) {
+            for (Pattern pattern : List.of(PLACEHOLDER, VALUE_ANNOTATION)) {
+                Matcher matcher = pattern.matcher(line);
+                while (matcher.find()) {
+                    String name = EnvReferenceExtractor.trimEnvVarName(matcher.group(1).trim());
+                    if (name.matches("^[A-Z][A-Z0-9_]*$") || name.contains("_")) {
+                        names.add(name);
+                    }
+                }
+            }
+            Matcher matcher = GETENV.matcher(line);
+            while (matcher.find()) {
+                names.add(EnvReferenceExtractor.trimEnvVarName(matcher.group(1).trim()));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,87 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class EnvScanCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reusesStoredUnitsWhenTheFingerprintMatches() {
+        EnvScanCache cache = new EnvScanCache(directory.resolve("cache").resolve("scan.cache"));
+        Map<String, EnvScanCache.Unit> units = new LinkedHashMap<>();
+        units.put("file:/app/application.yml", new EnvScanCache.Unit("12:34", Set.of("DB_URL", "API_KEY")));
+        units.put("file:/app/classes/", new EnvScanCache.Unit("d1:2:3", Set.of()));
+        cache.store("fingerprint", units);
+
+        EnvScanCache.Contents contents = cache.load();
+
+        assertThat(contents.matches("fingerprint")).isTrue();
+        assertThat(contents.matches("other")).isFalse();
+        assertThat(contents.get("file:/app/application.yml").getNames()).containsExactlyInAnyOrder("DB_URL", "API_KEY");
+        assertThat(contents.get("file:/app/application.yml").isCurrent("12:34")).isTrue();
+        assertThat(contents.get("file:/app/application.yml").isCurrent("12:35")).isFalse();
+        assertThat(contents.get("file:/app/classes/").getNames()).isEmpty();
+    }
+
+    @Test
+    void leavesTheFingerprintOutWhenAUnitHasNoStamp() {
+        EnvScanCache cache = new EnvScanCache(directory.resolve("scan.cache"));
+        Map<String, EnvScanCache.Unit> units = new LinkedHashMap<>();
+        units.put("file:/app/application.yml", new EnvScanCache.Unit("12:34", Set.of("DB_URL")));
+        units.put("jar:https://example.com/remote.jar!/application.yml", new EnvScanCache.Unit(null, Set.of("REMOTE_VAR")));
+        cache.store("fingerprint", units);
+
+        EnvScanCache.Contents contents = cache.load();
+
+        // A fingerprint hit would drop REMOTE_VAR, so the next start takes the incremental path
+        assertThat(contents.matches("fingerprint")).isFalse();
+        assertThat(contents.get("file:/app/application.yml").isCurrent("12:34")).isTrue();
+        assertThat(contents.get("jar:https://example.com/remote.jar!/application.yml")).isNull();
+    }
+
+    @Test
+    void createsTheDirectoryForItsOwnerOnly() throws IOException {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path cacheDirectory = directory.resolve("env-printer");
+        new EnvScanCache(cacheDirectory.resolve("scan.cache")).store("fingerprint", Map.of());
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(cacheDirectory))).isEqualTo("rwx------");
+    }
+
+    @Test
+    void ignoresFilesWritableByOthers() throws IOException {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path file = directory.resolve("scan.cache");
+        EnvScanCache cache = new EnvScanCache(file);
+        cache.store("fingerprint", Map.of("file:/app/application.yml", new EnvScanCache.Unit("1:2", Set.of("DB_URL"))));
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-rw-"));
+
+        assertThat(cache.load().matches("fingerprint")).isFalse();
+        assertThat(cache.load().getUnits()).isEmpty();
+    }
+
+    @Test
+    void ignoresDirectoriesWritableByOthers() throws IOException {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path shared = Files.createDirectory(directory.resolve("shared"));
+        EnvScanCache cache = new EnvScanCache(shared.resolve("scan.cache"));
+        cache.store("fingerprint", Map.of());
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        assertThat(cache.load().matches("fingerprint")).isFalse();
+    }
+}
@@ -0,0 +1,113 @@
+package com.skywalker.envprinter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class FileVariableSourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsDotenvEdgeCases() throws IOException {
+        Path dotenv = write(".env", """
+                # comment
+                export EXPORTED=yes
+                  SPACED = value with spaces \t
+                UNQUOTED=plain # trailing comment
+                HASH=pass#word
+                SINGLE='kept # as is \\n'
+                DOUBLE="line\\none \\"quoted\\" back\\\\slash # kept"
+                UNFINISHED="no closing quote
+                EMPTY=
+                EQUALS=a=b
+                =nameless
+                NO_EQUALS
+                DUPLICATE=first
+                DUPLICATE=second
+                """);
+        Map<String, String> values = new HashMap<>();
+
+        FileVariableSource.readDotenv(dotenv, values);
+
+        assertThat(values).containsOnly(
+                entry("EXPORTED", "yes"),
+                entry("SPACED", "value with spaces"),
+                entry("UNQUOTED", "plain"),
+                entry("HASH", "pass#word"),
+                entry("SINGLE", "kept # as is \\n"),
+                entry("DOUBLE", "line\none \"quoted\" back\\slash # kept"),
+                entry("UNFINISHED", "\"no closing quote"),
+                entry("EMPTY", ""),
+                entry("EQUALS", "a=b"),
+                entry("DUPLICATE", "second"));
+    }
+
+    @Test
+    void keepsNamesAlreadyReadAndIgnoresMissingFiles() throws IOException {
+        Path dotenv = write(".env", "DB_URL=dotenv\nDB_USER=sa\n");
+        Map<String, String> values = new HashMap<>(Map.of("DB_URL", "earlier"));
+
+        FileVariableSource.readDotenv(dotenv, values);
+        FileVariableSource.readDotenv(directory.resolve("missing.env"), values);
+
+        assertThat(values).containsOnly(entry("DB_URL", "earlier"), entry("DB_USER", "sa"));
+    }
+
+    @Test
+    void environmentTakesPrecedenceOverConfigTreesOverDotenvFiles() throws IOException {
+        Path tree = Files.createDirectory(directory.resolve("tree"));
+        Files.writeString(tree.resolve("SHARED"), "tree\n");
+        Files.writeString(tree.resolve("DB_URL"), "jdbc:tree\n");
+        Path dotenv = write(".env", "SHARED=dotenv\nDB_URL=jdbc:dotenv\nONLY_DOTENV=dotenv\n");
+        Map<String, String> env = Map.of("SHARED", "env", "HOME", "/root");
+
+        FileVariableSource source = new FileVariableSource(() -> env, List.of(tree), List.of(dotenv));
+
+        assertThat(source.getVariables()).containsOnly(entry("SHARED", "env"), entry("HOME", "/root"),
+                entry("DB_URL", "jdbc:tree"), entry("ONLY_DOTENV", "dotenv"));
+    }
+
+    @Test
+    void earlierConfigTreesTakePrecedence() throws IOException {
+        Path first = Files.createDirectory(directory.resolve("first"));
+        Path second = Files.createDirectory(directory.resolve("second"));
+        Files.writeString(first.resolve("DB_URL"), "jdbc:first");
+        Files.writeString(second.resolve("DB_URL"), "jdbc:second");
+        Files.writeString(second.resolve("DB_USER"), "sa");
+
+        FileVariableSource source = new FileVariableSource(Map::of, List.of(first, second), List.of());
+
+        assertThat(source.getVariables()).containsOnly(entry("DB_URL", "jdbc:first"), entry("DB_USER", "sa"));
+    }
+
+    @Test
+    void replacesTheVariablesOnlyWhenAFileChanged() throws IOException {
+        Path dotenv = write(".env", "DB_URL=one\n");
+        Map<String, String> env = Map.of("HOME", "/root");
+        FileVariableSource source = new FileVariableSource(() -> env, List.of(), List.of(dotenv));
+        Map<String, String> before = source.getVariables();
+
+        assertThat(source.refresh()).isFalse();
+        assertThat(source.getVariables()).isSameAs(before);
+
+        Files.writeString(dotenv, "DB_URL=two\n");
+        assertThat(source.refresh()).isTrue();
+        assertThat(source.getVariables()).isNotSameAs(before).containsEntry("DB_URL", "two");
+        assertThat(before).containsEntry("DB_URL", "one");
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}